@@ -0,0 +1,138 @@
+package org.example.metro.underground;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Продажа билетов и печать доходов. Выделение памяти на продажу: запуск с -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CashierBenchmark {
+    private static final int PAIRS = 1024;
+    private static final int BATCH = 10_000;
+    private static final LocalDate FIRST_DATE = LocalDate.of(2024, 1, 1);
+
+    @Param({MetroNetworks.PERM, "5x100", "20x500"})
+    private String network;
+
+    @Param({"0", "4096"})
+    private int fareCacheCapacity;
+
+    private Metro metro;
+    private Cashier[] cashiers;
+    private String[] starts;
+    private String[] finishes;
+    private LocalDate[] dates;
+    private List<TicketSale> batch;
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        metro = MetroNetworks.create(network);
+        metro.setFareCacheCapacity(fareCacheCapacity);
+        List<String> names = MetroNetworks.stationNames(metro);
+        Random random = new Random(42);
+        cashiers = new Cashier[PAIRS];
+        starts = new String[PAIRS];
+        finishes = new String[PAIRS];
+        dates = new LocalDate[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            int start = random.nextInt(names.size());
+            int finish = (start + 1 + random.nextInt(names.size() - 1)) % names.size();
+            cashiers[i] = metro.getStationByName(names.get(start)).getCashier();
+            starts[i] = names.get(start);
+            finishes[i] = names.get(finish);
+            dates[i] = FIRST_DATE.plusDays(random.nextInt(365));
+        }
+        for (int i = 0; i < PAIRS; i++) {
+            cashiers[i].sellTicket(starts[i], finishes[i], dates[i]);
+        }
+        batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            int pair = i & (PAIRS - 1);
+            batch.add(new TicketSale(starts[pair], finishes[pair], dates[pair % 4]));
+        }
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int index;
+
+        private int next() {
+            index = (index + 1) & (PAIRS - 1);
+            return index;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void sellTicket(Cursor cursor) {
+        int i = cursor.next();
+        cashiers[i].sellTicket(starts[i], finishes[i], dates[i]);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void sellTicketAllThreads(Cursor cursor) {
+        int i = cursor.next();
+        cashiers[i].sellTicket(starts[i], finishes[i], dates[i]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    @Threads(1)
+    public void sellTicketsBatch() {
+        cashiers[0].sellTickets(batch);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    @Threads(1)
+    public void sellTicketsOneByOne() {
+        Cashier cashier = cashiers[0];
+        for (TicketSale ticketSale : batch) {
+            cashier.sellTicket(ticketSale.getStartStation(), ticketSale.getFinishStation(), ticketSale.getDate());
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Threads(1)
+    public void printAllIncomes() {
+        metro.printAllIncomes();
+    }
+}
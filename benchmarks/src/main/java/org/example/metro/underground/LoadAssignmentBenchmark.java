@@ -0,0 +1,55 @@
+package org.example.metro.underground;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Распределение 2 млн пассажиропотоков по перегонам
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadAssignmentBenchmark {
+    private static final int FLOWS = 2_000_000;
+
+    @Param({"5x100", "20x500"})
+    private String network;
+
+    @Param({"true", "false"})
+    private boolean parallel;
+
+    private Metro metro;
+    private OdFlows flows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        metro = MetroNetworks.create(network);
+        int stationCount = metro.getNetwork().getStations().size();
+        Random random = new Random(42);
+        flows = new OdFlows();
+        for (int i = 0; i < FLOWS; i++) {
+            flows.add(random.nextInt(stationCount), random.nextInt(stationCount), 1 + random.nextInt(10));
+        }
+    }
+
+    @Benchmark
+    public SegmentLoads assignLoads() {
+        return metro.assignLoads(flows, RouteCriterion.TIME, parallel);
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.metro.underground;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.example.metro.underground.LineColor.BLUE;
+import static org.example.metro.underground.LineColor.RED;
+
+/**
+ * Сети метро для бенчмарков: пример Перми из Runner и синтетические сети "пересадки x станции"
+ */
+public class MetroNetworks {
+    protected static final String PERM = "perm";
+
+    /**
+     * Создание сети по названию: "perm" или "20x500" - 20 пересадок, всего 500 станций
+     */
+    protected static Metro create(String network) {
+        if (PERM.equals(network)) {
+            return createPerm();
+        }
+        String[] size = network.split("x");
+        return createSynthetic(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+    }
+
+    /**
+     * Названия всех станций сети в порядке создания
+     */
+    protected static List<String> stationNames(Metro metro) {
+        List<String> names = new ArrayList<>();
+        for (LineColor color : LineColor.values()) {
+            try {
+                metro.findLineByColor(color.getValue()).getStations().forEach(station -> names.add(station.getName()));
+            } catch (RuntimeException e) {
+                break;
+            }
+        }
+        return names;
+    }
+
+    private static Metro createPerm() {
+        Metro metro = new Metro("Пермь");
+        metro.createLine(RED);
+        metro.createLine(BLUE);
+        metro.createFirstStation(RED.getValue(), "Спортивная");
+        metro.createLastStation(RED.getValue(), "Медведковская", "2M21S");
+        metro.createLastStation(RED.getValue(), "Молодежная", "1M58S");
+        Station perm1 = metro.createLastStation(RED.getValue(), "Пермь 1", "3M");
+        metro.createLastStation(RED.getValue(), "Пермь 2", "2M10S");
+        metro.createLastStation(RED.getValue(), "Дворец Культуры", "4M26S");
+
+        metro.createFirstStation(BLUE.getValue(), "Пацанская");
+        metro.createLastStation(BLUE.getValue(), "Улица Кирова", "1M30S");
+        Station tygMash = metro.createLastStation(BLUE.getValue(), "Тяжмаш", "1M47S", Set.of("Пермь 1"));
+        metro.createLastStation(BLUE.getValue(), "Нижнекамская", "3M19S");
+        metro.createLastStation(BLUE.getValue(), "Соборная", "1M48S");
+        perm1.setChangeLineStations(Set.of(tygMash));
+        return metro;
+    }
+
+    /**
+     * Две линии одинаковой длины с transferCount пересадками, расставленными равномерно:
+     * пересадки идут по синей линии в обратном порядке, поэтому маршруты меняют линию несколько раз.
+     * Сеть строится только из цветов {@link LineColor}, размер задают станции и пересадки
+     */
+    private static Metro createSynthetic(int transferCount, int stationCount) {
+        int stationsPerLine = stationCount / 2;
+        if (transferCount <= 0 || transferCount >= stationsPerLine) {
+            throw new RuntimeException("Пересадок должно быть от 1 до " + (stationsPerLine - 1));
+        }
+        Set<Integer> transferPositions = new HashSet<>();
+        for (int transfer = 1; transfer <= transferCount; transfer++) {
+            transferPositions.add(transfer * stationsPerLine / (transferCount + 1));
+        }
+        Metro metro = new Metro("Синтетический " + transferCount + "x" + stationCount);
+        LineColor[] colors = {RED, BLUE};
+        for (int line = 0; line < colors.length; line++) {
+            String color = colors[line].getValue();
+            metro.createLine(colors[line]);
+            for (int position = 0; position < stationsPerLine; position++) {
+                Set<String> changeLineStations = null;
+                int redPosition = stationsPerLine - 1 - position;
+                if (line > 0 && transferPositions.contains(redPosition)) {
+                    changeLineStations = Set.of(stationName(0, redPosition));
+                }
+                String name = stationName(line, position);
+                if (position == 0) {
+                    metro.createFirstStation(color, name, changeLineStations);
+                } else {
+                    String time = (60 + (line * 7 + position * 13) % 120) + "S";
+                    metro.createLastStation(color, name, time, changeLineStations);
+                }
+            }
+        }
+        return metro;
+    }
+
+    private static String stationName(int line, int position) {
+        return "L" + line + "S" + position;
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.metro.underground;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отчет о выручке по 2000 кассам с продажами за 5000 дней - 10 млн записей.
+ * Масштабирование по ядрам: запуск с -jvmArgs -Djava.util.concurrent.ForkJoinPool.common.parallelism=N
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class RevenueAnalyticsBenchmark {
+    private static final LocalDate FIRST_DATE = LocalDate.of(2010, 1, 1);
+    private static final int DAYS = 5000;
+
+    @Param({"true", "false"})
+    private boolean parallel;
+
+    private Metro metro;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        metro = MetroNetworks.create("20x2000");
+        Random random = new Random(42);
+        long firstEpochDay = FIRST_DATE.toEpochDay();
+        for (Station station : metro.getNetwork().getStations()) {
+            for (int day = 0; day < DAYS; day++) {
+                station.getCashier().restoreValue(firstEpochDay + day, 20_00 + random.nextInt(100_000_00));
+            }
+        }
+    }
+
+    @Benchmark
+    public RevenueReport analyzeRevenue() {
+        return metro.analyzeRevenue(FIRST_DATE, FIRST_DATE.plusDays(DAYS - 1), parallel);
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.metro.underground;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Публикация событий входа и выхода с обработкой в фоне и запрос загрузки линии за 5 минут.
+ * Время публикации включает ожидание обработчиков при заполненном буфере
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RidershipBenchmark {
+    private static final int EVENTS = 1 << 16;
+    private static final long FIRST_MILLIS = 1_704_096_000_000L; //2024-01-01T08:00Z
+
+    @Param({"1", "2"})
+    private int consumerCount;
+
+    private RidershipStream stream;
+    private int[] stationIds;
+    private TripEventType[] types;
+    private long millis = FIRST_MILLIS;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Metro metro = MetroNetworks.create("20x500");
+        stream = metro.openRidership(Duration.ofMinutes(1), 61, consumerCount);
+        Random random = new Random(42);
+        stationIds = new int[EVENTS];
+        types = new TripEventType[EVENTS];
+        for (int i = 0; i < EVENTS; i++) {
+            stationIds[i] = random.nextInt(500);
+            types[i] = TripEventType.values()[random.nextInt(2)];
+        }
+        for (int i = 0; i < EVENTS; i++) {
+            publish();
+        }
+        stream.awaitProcessed();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stream.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void publish() {
+        int i = index++ & (EVENTS - 1);
+        stream.publish(stationIds[i], types[i], millis++);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long countLine() {
+        return stream.countLine(LineColor.RED, TripEventType.ENTRY, Duration.ofMinutes(5));
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.metro.underground;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подсчет перегонов и поиск станции по имени
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouteBenchmark {
+    private static final int PAIRS = 1024;
+    private static final Duration ISOCHRONE_TIME = Duration.ofMinutes(15);
+
+    @Param({MetroNetworks.PERM, "5x100", "20x500"})
+    private String network;
+
+    private Metro metro;
+    private String[] starts;
+    private String[] finishes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        metro = MetroNetworks.create(network);
+        List<String> names = MetroNetworks.stationNames(metro);
+        Random random = new Random(42);
+        starts = new String[PAIRS];
+        finishes = new String[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            int start = random.nextInt(names.size());
+            int finish = (start + 1 + random.nextInt(names.size() - 1)) % names.size();
+            starts[i] = names.get(start);
+            finishes[i] = names.get(finish);
+        }
+        metro.setTransferPenalty(Duration.ofMinutes(2));
+        metro.countStages(starts[0], finishes[0]);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int index;
+
+        private int next() {
+            index = (index + 1) & (PAIRS - 1);
+            return index;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int countStages(Cursor cursor) {
+        int i = cursor.next();
+        return metro.countStages(starts[i], finishes[i]);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public int countStagesAllThreads(Cursor cursor) {
+        int i = cursor.next();
+        return metro.countStages(starts[i], finishes[i]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Duration findFastestTravelTime(Cursor cursor) {
+        int i = cursor.next();
+        return metro.findFastestTravelTime(starts[i], finishes[i]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Map<String, Duration> findIsochrone(Cursor cursor) {
+        return metro.findIsochrone(starts[cursor.next()], ISOCHRONE_TIME);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Station getStationByName(Cursor cursor) {
+        return metro.getStationByName(starts[cursor.next()]);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Station getStationByNameAllThreads(Cursor cursor) {
+        return metro.getStationByName(starts[cursor.next()]);
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.metro.underground;
+
+import org.example.metro.metrics.LatencyHistogram;
+import org.example.metro.server.MetroServer;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Нагрузка на локальный сервер касс: проверки абонементов, продажи билетов и абонементов.
+ * Запуск: java -Dsun.net.httpserver.nodelay=true -cp benchmarks.jar org.example.metro.underground.ServerLoadGenerator
+ * [сеть] [клиенты] [секунды] [maxPending]
+ */
+public class ServerLoadGenerator {
+    private static final LocalDate DATE = LocalDate.of(2024, 1, 1);
+    private static final int SUBSCRIPTIONS = 1000;
+
+    public static void main(String[] args) throws Exception {
+        String network = args.length > 0 ? args[0] : "5x100";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int maxPending = args.length > 3 ? Integer.parseInt(args[3]) : 1024;
+
+        Metro metro = MetroNetworks.create(network);
+        List<String> stations = MetroNetworks.stationNames(metro);
+        String[] subscriptions = new String[SUBSCRIPTIONS];
+        for (int i = 0; i < SUBSCRIPTIONS; i++) {
+            subscriptions[i] = metro.getStationByName(stations.get(0)).saleSubscription(DATE).getNumber();
+        }
+
+        try (MetroServer server = MetroServer.start(metro, 0, Runtime.getRuntime().availableProcessors() * 4, maxPending)) {
+            String baseUrl = "http://localhost:" + server.getPort();
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            LatencyHistogram checks = new LatencyHistogram();
+            LatencyHistogram tickets = new LatencyHistogram();
+            LatencyHistogram sales = new LatencyHistogram();
+            LongAdder rejected = new LongAdder();
+            LongAdder failed = new LongAdder();
+            long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+
+            List<Thread> threads = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                long seed = c;
+                Thread thread = new Thread(() -> {
+                    Random random = new Random(seed);
+                    while (System.nanoTime() < deadline) {
+                        int operation = random.nextInt(100);
+                        String station = encode(stations.get(random.nextInt(stations.size())));
+                        HttpRequest request;
+                        LatencyHistogram histogram;
+                        if (operation < 70) {
+                            request = HttpRequest.newBuilder(URI.create(baseUrl + "/subscriptions/active?number="
+                                    + subscriptions[random.nextInt(SUBSCRIPTIONS)] + "&date=" + DATE)).GET().build();
+                            histogram = checks;
+                        } else if (operation < 95) {
+                            String finish = encode(stations.get(random.nextInt(stations.size())));
+                            request = post(baseUrl + "/tickets?station=" + station + "&start=" + station
+                                    + "&finish=" + finish + "&date=" + DATE.plusDays(random.nextInt(365)));
+                            histogram = tickets;
+                        } else {
+                            request = post(baseUrl + "/subscriptions?station=" + station + "&date=" + DATE);
+                            histogram = sales;
+                        }
+                        long start = System.nanoTime();
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (status == 503) {
+                                rejected.increment();
+                            } else if (status != 200 && status != 400) {
+                                failed.increment();
+                            }
+                        } catch (Exception e) {
+                            failed.increment();
+                        }
+                        histogram.record(System.nanoTime() - start);
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            long total = checks.getCount() + tickets.getCount() + sales.getCount();
+            System.out.printf("network=%s clients=%d seconds=%d requests=%d throughput=%d/s rejected=%d failed=%d%n",
+                    network, clients, seconds, total, total / seconds, rejected.sum(), failed.sum());
+            System.out.println("client " + checks.format("/subscriptions/active"));
+            System.out.println("client " + tickets.format("/tickets"));
+            System.out.println("client " + sales.format("/subscriptions"));
+            System.out.print("server " + server.formatStats().replace("\n/", "\nserver /"));
+        }
+    }
+
+    private static HttpRequest post(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).POST(HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
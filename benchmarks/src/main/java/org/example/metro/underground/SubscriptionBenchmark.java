@@ -0,0 +1,114 @@
+package org.example.metro.underground;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Продажа и проверка абонементов
+ */
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class SubscriptionBenchmark {
+    private static final int SUBSCRIPTIONS = 1024;
+    private static final int BATCH = 5_000;
+    private static final LocalDate START_DATE = LocalDate.of(2024, 1, 1);
+
+    /**
+     * Метро с проданными абонементами для проверок
+     */
+    @State(Scope.Benchmark)
+    public static class SoldSubscriptions {
+        private Metro metro;
+        private String[] numbers;
+        private LocalDate[] checkDates;
+        private boolean[] results;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            metro = MetroNetworks.create(MetroNetworks.PERM);
+            numbers = new String[SUBSCRIPTIONS];
+            checkDates = new LocalDate[SUBSCRIPTIONS];
+            results = new boolean[SUBSCRIPTIONS];
+            for (int i = 0; i < SUBSCRIPTIONS; i++) {
+                numbers[i] = metro.addSubscription(START_DATE.plusDays(i % 60)).getNumber();
+                checkDates[i] = START_DATE.plusDays(i % 90);
+            }
+        }
+    }
+
+    /**
+     * Пустое метро на каждую итерацию, количество абонементов ограничено
+     */
+    @State(Scope.Benchmark)
+    public static class EmptyMetro {
+        private Metro metro;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            metro = MetroNetworks.create(MetroNetworks.PERM);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int index;
+
+        private int next() {
+            index = (index + 1) & (SUBSCRIPTIONS - 1);
+            return index;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5, batchSize = BATCH)
+    @Measurement(iterations = 1, batchSize = BATCH)
+    @Threads(1)
+    public Subscription addSubscription(EmptyMetro state) {
+        return state.metro.addSubscription(START_DATE);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Threads(1)
+    public boolean isSubscriptionActive(SoldSubscriptions state, Cursor cursor) {
+        int i = cursor.next();
+        return state.metro.isSubscriptionActive(state.numbers[i], state.checkDates[i]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Threads(Threads.MAX)
+    public boolean isSubscriptionActiveAllThreads(SoldSubscriptions state, Cursor cursor) {
+        int i = cursor.next();
+        return state.metro.isSubscriptionActive(state.numbers[i], state.checkDates[i]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @OperationsPerInvocation(SUBSCRIPTIONS)
+    @Threads(1)
+    public int checkSubscriptions(SoldSubscriptions state) {
+        return state.metro.checkSubscriptions(state.numbers, START_DATE.plusDays(30), state.results);
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.metro.underground;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Расчет цены билета по единому тарифу и по скомпилированным правилам. Выделение памяти: запуск с -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TariffBenchmark {
+    private static final int PAIRS = 1024;
+    private static final LocalDate FIRST_DATE = LocalDate.of(2024, 1, 1);
+
+    @Param({"5x100", "20x500"})
+    private String network;
+
+    @Param({"flat", "rules"})
+    private String tariff;
+
+    private Tariff frozenTariff;
+    private Cashier[] cashiers;
+    private String[] starts;
+    private String[] finishes;
+    private LocalDate[] dates;
+    private int[] fromIds;
+    private int[] toIds;
+    private int[] stages;
+    private int[] transfers;
+    private long[] epochDays;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Metro metro = MetroNetworks.create(network);
+        List<String> names = MetroNetworks.stationNames(metro);
+        if ("rules".equals(tariff)) {
+            TariffRules rules = new TariffRules()
+                    .setLineStageRate(LineColor.RED, 6_00)
+                    .setTransferSurcharge(10_00)
+                    .setZoneSurcharge(0, 1, 15_00)
+                    .setZoneSurcharge(1, 1, 5_00)
+                    .setDayOfWeekPercent(DayOfWeek.SATURDAY, 80)
+                    .setDayOfWeekPercent(DayOfWeek.SUNDAY, 80);
+            for (int i = 0; i < names.size(); i += 2) {
+                rules.setStationZone(names.get(i), 1);
+            }
+            metro.setTariff(rules);
+        }
+        FrozenNetwork frozen = metro.getNetwork();
+        frozenTariff = frozen.getTariff();
+        StageMatrix matrix = frozen.getStageMatrix();
+        Random random = new Random(42);
+        cashiers = new Cashier[PAIRS];
+        starts = new String[PAIRS];
+        finishes = new String[PAIRS];
+        dates = new LocalDate[PAIRS];
+        fromIds = new int[PAIRS];
+        toIds = new int[PAIRS];
+        stages = new int[PAIRS];
+        transfers = new int[PAIRS];
+        epochDays = new long[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            int start = random.nextInt(names.size());
+            int finish = (start + 1 + random.nextInt(names.size() - 1)) % names.size();
+            Station startStation = metro.getStationByName(names.get(start));
+            Station finishStation = metro.getStationByName(names.get(finish));
+            cashiers[i] = startStation.getCashier();
+            starts[i] = names.get(start);
+            finishes[i] = names.get(finish);
+            dates[i] = FIRST_DATE.plusDays(random.nextInt(365));
+            fromIds[i] = startStation.getId();
+            toIds[i] = finishStation.getId();
+            stages[i] = matrix.getStages(fromIds[i], toIds[i]);
+            transfers[i] = matrix.getTransfers(fromIds[i], toIds[i]);
+            epochDays[i] = dates[i].toEpochDay();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int index;
+
+        private int next() {
+            index = (index + 1) & (PAIRS - 1);
+            return index;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long ticketFare(Cursor cursor) {
+        int i = cursor.next();
+        return frozenTariff.ticketFare(fromIds[i], toIds[i], stages[i], transfers[i], epochDays[i]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void sellTicket(Cursor cursor) {
+        int i = cursor.next();
+        cashiers[i].sellTicket(starts[i], finishes[i], dates[i]);
+    }
+}
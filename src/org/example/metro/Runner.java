@@ -1,5 +1,6 @@
 package org.example.metro;
 
+import org.example.metro.server.MetroServer;
 import org.example.metro.underground.Metro;
 import org.example.metro.underground.Station;
 
@@ -11,6 +12,9 @@ import static org.example.metro.underground.LineColor.BLUE;
 import static org.example.metro.underground.LineColor.RED;
 
 public class Runner {
+    private static final String SERVER_MODE = "server";
+    private static final int DEFAULT_PORT = 8080;
+
     public static void main(String[] args) {
 
         Metro metro = new Metro("Пермь");
@@ -38,6 +42,12 @@ public class Runner {
         perm1.saleSubscription(LocalDate.now());
         metro.printAllIncomes();
 
+        if (args.length > 0 && SERVER_MODE.equals(args[0])) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+            MetroServer server = MetroServer.start(metro, port, Runtime.getRuntime().availableProcessors() * 4, 10_000);
+            System.out.println("Сервер касс запущен на http://localhost:" + server.getPort());
+        }
+
 
     }
 }
@@ -0,0 +1,125 @@
+package org.example.metro.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма задержек в наносекундах с логарифмическими корзинами: 16 корзин на каждую степень двойки,
+ * погрешность перцентилей не больше 6.25%. Корзины разделены на полосы по потокам, запись без блокировок
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    private static final int MAX_STRIPES = 8;
+    private final AtomicLongArray[] stripes;
+    private final int mask;
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    public LatencyHistogram() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int count = Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, processors * 2 - 1)));
+        stripes = new AtomicLongArray[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new AtomicLongArray(BUCKETS);
+        }
+        mask = count - 1;
+    }
+
+    /**
+     * Запись задержки
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        stripes[(int) Thread.currentThread().getId() & mask].getAndIncrement(bucket(value));
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        long total = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                total += stripe.get(i);
+            }
+        }
+        return total;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Средняя задержка, 0 - нет записей
+     */
+    public long getMean() {
+        long total = getCount();
+        return total == 0 ? 0 : sum.sum() / total;
+    }
+
+    /**
+     * Верхняя граница корзины, в которую попадает перцентиль
+     *
+     * @param percentile доля от 0 до 1
+     */
+    public long getPercentile(double percentile) {
+        long total = 0;
+        long[] counts = new long[BUCKETS];
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                long bucketCount = stripe.get(i);
+                counts[i] += bucketCount;
+                total += bucketCount;
+            }
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(upperBound(i), getMax());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Строка отчета с задержками в наносекундах
+     */
+    public String format(String name) {
+        return format(name, getCount(), getMean(), getPercentile(0.5), getPercentile(0.99), getPercentile(0.999), getMax());
+    }
+
+    /**
+     * Строка отчета гистограммы без записей, гистограмма не создается
+     */
+    public static String formatEmpty(String name) {
+        return format(name, 0, 0, 0, 0, 0, 0);
+    }
+
+    private static String format(String name, long count, long mean, long p50, long p99, long p999, long max) {
+        return "%s count=%d mean=%dns p50=%dns p99=%dns p999=%dns max=%dns".formatted(name, count, mean, p50, p99, p999, max);
+    }
+
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        long lowerBound = (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,279 @@
+package org.example.metro.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.InvalidAttributeValueException;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanException;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счетчики и гистограммы задержек операций метрополитена.
+ * Выключенные метрики стоят одной проверки флага на операцию.
+ * Доступны текстом {@link #format()} и через JMX: атрибуты счетчиков и count/mean/p99/max каждого таймера в наносекундах
+ */
+public class MetroMetrics implements DynamicMBean {
+    /**
+     * Начало измерения при выключенных метриках, {@link #startTimer()} не возвращает его для включенных
+     */
+    public static final long TIMER_DISABLED = Long.MIN_VALUE;
+    private static final String ENABLED = "Enabled";
+    private static final String FORMAT = "format";
+    private volatile boolean enabled;
+    private final LongAdder[] counters = new LongAdder[Counter.values().length];
+    private volatile LatencyHistogram[] timers; //Создаются при первом включении, до этого null
+
+    /**
+     * Счетчики событий
+     */
+    public enum Counter {
+        TICKETS_SOLD, SUBSCRIPTIONS_SOLD, SUBSCRIPTIONS_REFRESHED, SUBSCRIPTION_CHECKS,
+        STATION_LOOKUP_FAILURES, SUBSCRIPTION_LOOKUP_FAILURES
+    }
+
+    /**
+     * Измеряемые операции
+     */
+    public enum Timer {
+        SELL_TICKET, SELL_SUBSCRIPTION, REFRESH_SUBSCRIPTION, COUNT_STAGES, CHECK_SUBSCRIPTION
+    }
+
+    public MetroMetrics() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        if (enabled) {
+            createTimers();
+        }
+        this.enabled = enabled;
+    }
+
+    /**
+     * Увеличение счетчика на 1
+     */
+    public void increment(Counter counter) {
+        if (enabled) {
+            counters[counter.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Увеличение счетчика на заданное значение
+     */
+    public void add(Counter counter, long value) {
+        if (enabled) {
+            counters[counter.ordinal()].add(value);
+        }
+    }
+
+    /**
+     * Начало измерения операции
+     *
+     * @return время начала для {@link #stopTimer(Timer, long)}, {@link #TIMER_DISABLED} - метрики выключены
+     */
+    public long startTimer() {
+        if (!enabled) {
+            return TIMER_DISABLED;
+        }
+        long start = System.nanoTime();
+        return start == TIMER_DISABLED ? start + 1 : start;
+    }
+
+    /**
+     * Окончание измерения операции, начатого {@link #startTimer()}
+     */
+    public void stopTimer(Timer timer, long start) {
+        if (start != TIMER_DISABLED) {
+            createTimers()[timer.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    public long getCount(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    /**
+     * Гистограмма таймера, null - метрики ни разу не включались
+     */
+    public LatencyHistogram getHistogram(Timer timer) {
+        LatencyHistogram[] current = timers;
+        return current == null ? null : current[timer.ordinal()];
+    }
+
+    /**
+     * Гистограммы таймеров, создаются при первом обращении: у выключенных метрик нет гистограмм
+     */
+    private LatencyHistogram[] createTimers() {
+        LatencyHistogram[] current = timers;
+        if (current == null) {
+            synchronized (this) {
+                current = timers;
+                if (current == null) {
+                    current = new LatencyHistogram[Timer.values().length];
+                    for (int i = 0; i < current.length; i++) {
+                        current[i] = new LatencyHistogram();
+                    }
+                    timers = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Текстовый отчет по всем счетчикам и таймерам
+     */
+    public String format() {
+        StringBuilder text = new StringBuilder();
+        for (Counter counter : Counter.values()) {
+            text.append(attributeName(counter.name())).append('=').append(getCount(counter)).append('\n');
+        }
+        for (Timer timer : Timer.values()) {
+            LatencyHistogram histogram = getHistogram(timer);
+            String name = attributeName(timer.name());
+            text.append(histogram == null ? LatencyHistogram.formatEmpty(name) : histogram.format(name)).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Регистрация метрик в JMX сервере платформы
+     */
+    public ObjectName registerMBean(String city) {
+        try {
+            ObjectName name = new ObjectName("org.example.metro:type=Metrics,city=" + ObjectName.quote(city));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            return name;
+        } catch (JMException e) {
+            throw new RuntimeException("Не удалось зарегистрировать метрики: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        if (ENABLED.equals(attribute)) {
+            return enabled;
+        }
+        for (Counter counter : Counter.values()) {
+            if (attributeName(counter.name()).equals(attribute)) {
+                return getCount(counter);
+            }
+        }
+        for (Timer timer : Timer.values()) {
+            String prefix = attributeName(timer.name());
+            if (attribute.startsWith(prefix)) {
+                LatencyHistogram histogram = getHistogram(timer);
+                switch (attribute.substring(prefix.length())) {
+                    case "Count":
+                        return histogram == null ? 0L : histogram.getCount();
+                    case "MeanNanos":
+                        return histogram == null ? 0L : histogram.getMean();
+                    case "P99Nanos":
+                        return histogram == null ? 0L : histogram.getPercentile(0.99);
+                    case "MaxNanos":
+                        return histogram == null ? 0L : histogram.getMax();
+                    default:
+                        break;
+                }
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException, InvalidAttributeValueException {
+        if (!ENABLED.equals(attribute.getName())) {
+            throw new AttributeNotFoundException(attribute.getName());
+        }
+        if (!(attribute.getValue() instanceof Boolean)) {
+            throw new InvalidAttributeValueException("Значение атрибута " + ENABLED + " должно быть Boolean: "
+                    + attribute.getValue());
+        }
+        setEnabled((Boolean) attribute.getValue());
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                //Неизвестные атрибуты пропускаются по контракту DynamicMBean
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        AttributeList list = new AttributeList();
+        for (Attribute attribute : attributes.asList()) {
+            try {
+                setAttribute(attribute);
+                list.add(attribute);
+            } catch (AttributeNotFoundException | InvalidAttributeValueException e) {
+                //Неизменяемые атрибуты и значения неверного типа пропускаются по контракту DynamicMBean
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature)
+            throws MBeanException, ReflectionException {
+        if (FORMAT.equals(actionName)) {
+            return format();
+        }
+        throw new ReflectionException(new NoSuchMethodException(actionName), "Неизвестная операция: " + actionName);
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        attributes.add(new MBeanAttributeInfo(ENABLED, "boolean", "Сбор метрик включен", true, true, true));
+        for (Counter counter : Counter.values()) {
+            attributes.add(new MBeanAttributeInfo(attributeName(counter.name()), "long", "Счетчик", true, false, false));
+        }
+        for (Timer timer : Timer.values()) {
+            for (String suffix : new String[]{"Count", "MeanNanos", "P99Nanos", "MaxNanos"}) {
+                attributes.add(new MBeanAttributeInfo(attributeName(timer.name()) + suffix, "long",
+                        "Задержка операции", true, false, false));
+            }
+        }
+        MBeanOperationInfo format = new MBeanOperationInfo(FORMAT, "Текстовый отчет",
+                new MBeanParameterInfo[0], "java.lang.String", MBeanOperationInfo.INFO);
+        return new MBeanInfo(getClass().getName(), "Метрики метрополитена",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[]{format}, null);
+    }
+
+    /**
+     * TICKETS_SOLD - TicketsSold
+     */
+    private static String attributeName(String constant) {
+        StringBuilder name = new StringBuilder();
+        for (String word : constant.split("_")) {
+            name.append(word.charAt(0)).append(word.substring(1).toLowerCase(Locale.ROOT));
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,246 @@
+package org.example.metro.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.example.metro.metrics.LatencyHistogram;
+import org.example.metro.underground.Metro;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Локальный HTTP сервер касс и турникетов.
+ * Запросы обрабатываются в виртуальных потоках, если они есть в JDK, иначе в пуле потоков.
+ * При превышении числа ожидающих запросов новые запросы сразу получают 503 без обращения к метрополитену.
+ * Без флага JVM {@code -Dsun.net.httpserver.nodelay=true} короткие ответы ждут отложенного ACK:
+ * сервер его не устанавливает, так как свойство общее для всех HTTP серверов JVM и читается при загрузке классов
+ * <pre>
+ * POST /tickets?station=Пермь 1&amp;start=Пермь 1&amp;finish=Соборная&amp;date=2024-01-01
+ * POST /subscriptions?station=Пермь 1&amp;date=2024-01-01                  - номер абонемента
+ * POST /subscriptions/refresh?station=Пермь 1&amp;number=a0001&amp;date=2024-02-01
+ * GET  /subscriptions/active?number=a0001&amp;date=2024-01-15              - true или false
+ * GET  /stats                                                        - задержки и метрики
+ * </pre>
+ */
+public class MetroServer implements Closeable {
+    private static final String GET = "GET";
+    private static final String POST = "POST";
+    private static final int OK = 200;
+    private static final int BAD_REQUEST = 400;
+    private static final int NOT_FOUND = 404;
+    private static final int METHOD_NOT_ALLOWED = 405;
+    private static final int SERVICE_UNAVAILABLE = 503;
+    private final Metro metro;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final int maxPending; //Запросов в очереди и в обработке, сверх него - 503
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ThreadLocal<Boolean> overloaded = ThreadLocal.withInitial(() -> false);
+    private final LongAdder rejected = new LongAdder();
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    /**
+     * Операция сервера
+     */
+    private static class Endpoint {
+        private final String method;
+        private final Function<Map<String, String>, String> handler;
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private Endpoint(String method, Function<Map<String, String>, String> handler) {
+            this.method = method;
+            this.handler = handler;
+        }
+    }
+
+    private MetroServer(Metro metro, InetSocketAddress address, int workerThreads, int maxPending) throws IOException {
+        this.metro = metro;
+        this.maxPending = maxPending;
+        this.executor = createExecutor(workerThreads);
+        this.server = HttpServer.create(address, 0);
+        endpoints.put("/tickets", new Endpoint(POST, this::sellTicket));
+        endpoints.put("/subscriptions", new Endpoint(POST, this::sellSubscription));
+        endpoints.put("/subscriptions/refresh", new Endpoint(POST, this::refreshSubscription));
+        endpoints.put("/subscriptions/active", new Endpoint(GET, this::isSubscriptionActive));
+        endpoints.put("/stats", new Endpoint(GET, parameters -> formatStats()));
+        server.createContext("/", this::handle);
+        server.setExecutor(command -> {
+            boolean accepted = pending.incrementAndGet() <= maxPending;
+            executor.execute(() -> {
+                overloaded.set(!accepted);
+                try {
+                    command.run();
+                } finally {
+                    pending.decrementAndGet();
+                }
+            });
+        });
+    }
+
+    /**
+     * Запуск сервера
+     *
+     * @param port          порт, 0 - любой свободный
+     * @param workerThreads потоков обработки, если в JDK нет виртуальных потоков
+     * @param maxPending    запросов в очереди и в обработке, сверх него сервер отвечает 503
+     */
+    public static MetroServer start(Metro metro, int port, int workerThreads, int maxPending) {
+        try {
+            MetroServer metroServer = new MetroServer(metro,
+                    new InetSocketAddress("localhost", port), workerThreads, maxPending);
+            metroServer.server.start();
+            return metroServer;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Задержки по операциям, число отклоненных запросов и метрики метрополитена, если они включены
+     */
+    public String formatStats() {
+        StringBuilder stats = new StringBuilder();
+        endpoints.forEach((path, endpoint) -> stats.append(endpoint.latency.format(path)).append('\n'));
+        stats.append("rejected=").append(rejected.sum()).append(" pending=").append(pending.get()).append('\n');
+        if (metro.getMetrics().isEnabled()) {
+            stats.append(metro.getMetrics().format());
+        }
+        return stats.toString();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String sellTicket(Map<String, String> parameters) {
+        metro.getStationByName(required(parameters, "station"))
+                .saleOneTicket(required(parameters, "start"), required(parameters, "finish"), date(parameters));
+        return "OK";
+    }
+
+    private String sellSubscription(Map<String, String> parameters) {
+        return metro.getStationByName(required(parameters, "station"))
+                .saleSubscription(date(parameters))
+                .getNumber();
+    }
+
+    private String refreshSubscription(Map<String, String> parameters) {
+        metro.getStationByName(required(parameters, "station"))
+                .refreshSubscription(required(parameters, "number"), date(parameters));
+        return "OK";
+    }
+
+    private String isSubscriptionActive(Map<String, String> parameters) {
+        return String.valueOf(metro.isSubscriptionActive(required(parameters, "number"), date(parameters)));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (overloaded.get()) {
+                rejected.increment();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, SERVICE_UNAVAILABLE, "Сервер перегружен");
+                return;
+            }
+            Endpoint endpoint = endpoints.get(exchange.getRequestURI().getPath());
+            if (endpoint == null) {
+                respond(exchange, NOT_FOUND, "Неизвестная операция");
+            } else if (!endpoint.method.equals(exchange.getRequestMethod())) {
+                respond(exchange, METHOD_NOT_ALLOWED, "Ожидается " + endpoint.method);
+            } else {
+                long start = System.nanoTime();
+                handleEndpoint(endpoint, exchange);
+                endpoint.latency.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static void handleEndpoint(Endpoint endpoint, HttpExchange exchange) throws IOException {
+        String body;
+        try {
+            body = endpoint.handler.apply(parseQuery(exchange.getRequestURI().getRawQuery()));
+        } catch (RuntimeException e) {
+            respond(exchange, BAD_REQUEST, String.valueOf(e.getMessage()));
+            return;
+        }
+        respond(exchange, OK, body);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static String required(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new RuntimeException("Не указан параметр " + name);
+        }
+        return value;
+    }
+
+    private static LocalDate date(Map<String, String> parameters) {
+        return LocalDate.parse(required(parameters, "date"));
+    }
+
+    /**
+     * Виртуальные потоки на задачу, если доступны (JDK 21+), иначе пул из заданного числа потоков
+     */
+    private static ExecutorService createExecutor(int workerThreads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            return Executors.newFixedThreadPool(workerThreads, runnable -> {
+                Thread thread = new Thread(runnable, "metro-server-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -1,57 +1,168 @@
 package org.example.metro.underground;
 
+import org.example.metro.metrics.MetroMetrics;
+
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.locks.Lock;
 
-import static java.math.BigDecimal.ZERO;
+import static org.example.metro.underground.util.UndergroundUtil.checkEpochDay;
+import static org.example.metro.underground.util.UndergroundUtil.kopecksToRoubles;
 
 /**
- * Касса станции метро
+ * Касса станции метро, цены берутся из тарифа метрополитена {@link Metro#setTariff(Tariff)}
  */
 public class Cashier {
-    private static final BigDecimal TICKET_FEE = new BigDecimal(20);
-    private static final BigDecimal PRICE_RUN = new BigDecimal(5);
-    private static final BigDecimal SUBSCRIPTION_PRICE = new BigDecimal(3_000);
-    private final Map<LocalDate, BigDecimal> sales = new HashMap<>();
+    private final SparseDailyRevenue sales = new SparseDailyRevenue();
     private final Metro metro;
+    private final Station station;
 
-    protected Cashier(Metro metro) {
+    protected Cashier(Metro metro, Station station) {
         this.metro = metro;
+        this.station = station;
     }
 
     /**
      * Продажа билета
      */
     protected void sellTicket(String startStation, String finishStation, LocalDate sellDate) {
-        int countRuns = metro.countStages(startStation, finishStation);
-        BigDecimal ticketPrice = PRICE_RUN.multiply(new BigDecimal(countRuns)).add(TICKET_FEE);
-        addValue(sellDate, ticketPrice);
+        MetroMetrics metrics = metro.getMetrics();
+        long start = metrics.startTimer();
+        try {
+            addValue(sellDate, metro.findFare(startStation, finishStation, sellDate.toEpochDay()));
+            metrics.increment(MetroMetrics.Counter.TICKETS_SOLD);
+        } finally {
+            metrics.stopTimer(MetroMetrics.Timer.SELL_TICKET, start);
+        }
+    }
+
+    /**
+     * Продажа пакета билетов. Цены считаются до записи выручки,
+     * поэтому при ошибке в любой продаже пакет не учитывается целиком
+     */
+    protected void sellTickets(Collection<TicketSale> ticketSales) {
+        FrozenNetwork frozen = metro.getNetwork();
+        Map<String, Station> batchStations = new HashMap<>();
+        SalesBatch batch = new SalesBatch();
+        for (TicketSale ticketSale : ticketSales) {
+            priceTicket(frozen,
+                    metro.findStation(frozen, ticketSale.getStartStation(), batchStations),
+                    metro.findStation(frozen, ticketSale.getFinishStation(), batchStations),
+                    ticketSale.getDate(),
+                    batch);
+        }
+        addValues(batch);
+        metro.getMetrics().add(MetroMetrics.Counter.TICKETS_SOLD, ticketSales.size());
+    }
+
+    /**
+     * Расчет цены билета в пакет продаж без записи выручки.
+     * Дата проверяется здесь, чтобы запись пакета не прервалась на середине
+     */
+    protected void priceTicket(FrozenNetwork frozen,
+                               Station stationStart,
+                               Station stationFinish,
+                               LocalDate sellDate,
+                               SalesBatch batch) {
+        long epochDay = checkEpochDay(sellDate.toEpochDay());
+        batch.add(epochDay, metro.findFare(frozen, stationStart, stationFinish, epochDay));
     }
 
     /**
      * Продажа нового абонемента
      */
     protected Subscription sellNewSubscription(LocalDate startSubscriptionDate) {
-        Subscription subscription = metro.addSubscription(startSubscriptionDate);
-        addValue(startSubscriptionDate, SUBSCRIPTION_PRICE);
-        return subscription;
+        MetroMetrics metrics = metro.getMetrics();
+        long start = metrics.startTimer();
+        try {
+            long price = metro.findSubscriptionPrice(startSubscriptionDate);
+            Subscription subscription = metro.addSubscription(startSubscriptionDate);
+            addValue(startSubscriptionDate, price);
+            metrics.increment(MetroMetrics.Counter.SUBSCRIPTIONS_SOLD);
+            return subscription;
+        } finally {
+            metrics.stopTimer(MetroMetrics.Timer.SELL_SUBSCRIPTION, start);
+        }
     }
 
     /**
      * Продление существующего абонемента
      */
     protected void refreshSubscription(String subscriptionNumber, LocalDate sellDate) {
-        metro.refreshSubscription(subscriptionNumber, sellDate);
-        addValue(sellDate, SUBSCRIPTION_PRICE);
+        MetroMetrics metrics = metro.getMetrics();
+        long start = metrics.startTimer();
+        try {
+            long price = metro.findSubscriptionPrice(sellDate);
+            metro.refreshSubscription(subscriptionNumber, sellDate);
+            addValue(sellDate, price);
+            metrics.increment(MetroMetrics.Counter.SUBSCRIPTIONS_REFRESHED);
+        } finally {
+            metrics.stopTimer(MetroMetrics.Timer.REFRESH_SUBSCRIPTION, start);
+        }
     }
 
-    private void addValue(LocalDate date, BigDecimal value) {
-        sales.put(date, sales.getOrDefault(date, ZERO).add(value));
+    private void addValue(LocalDate date, long kopecks) {
+        Lock lock = metro.getSalesLock().lockShared();
+        try {
+            recordValue(date.toEpochDay(), kopecks);
+        } finally {
+            lock.unlock();
+        }
     }
 
+    /**
+     * Запись выручки пакета продаж
+     */
+    protected void addValues(SalesBatch batch) {
+        Lock lock = metro.getSalesLock().lockShared();
+        try {
+            for (int i = 0; i < batch.getDayCount(); i++) {
+                recordValue(batch.getEpochDay(i), batch.getAmount(i));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Восстановление выручки из журнала продаж без повторной записи в журнал
+     */
+    protected void restoreValue(long epochDay, long kopecks) {
+        sales.add(epochDay, kopecks);
+        metro.getRevenueLedger().add(station.getLine(), epochDay, kopecks);
+    }
+
+    private void recordValue(long epochDay, long kopecks) {
+        restoreValue(epochDay, kopecks);
+        SalesJournal journal = metro.getJournal();
+        if (journal != null) {
+            journal.appendSale(station.getId(), epochDay, kopecks);
+        }
+    }
+
+    /**
+     * Выручка кассы за период в копейках, обе границы включительно
+     */
+    protected long getIncomeBetween(long fromEpochDay, long toEpochDay) {
+        return sales.sumBetween(fromEpochDay, toEpochDay);
+    }
+
+    /**
+     * Копия выручки кассы по дням за период, обе границы включительно
+     */
+    protected SparseDailyRevenue copySalesBetween(long fromEpochDay, long toEpochDay) {
+        return sales.copyBetween(fromEpochDay, toEpochDay);
+    }
+
+    /**
+     * Снимок выручки по датам
+     */
     protected Map<LocalDate, BigDecimal> getSales() {
-        return sales;
+        Map<LocalDate, BigDecimal> snapshot = new HashMap<>();
+        sales.forEach((date, kopecks) -> snapshot.put(date, kopecksToRoubles(kopecks)));
+        return snapshot;
     }
 }
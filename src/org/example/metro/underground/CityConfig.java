@@ -0,0 +1,77 @@
+package org.example.metro.underground;
+
+import java.time.Duration;
+import java.util.Objects;
+
+import static org.example.metro.underground.UndergroundValidatorUtil.checkTransferPenalty;
+
+/**
+ * Настройки метрополитена города в {@link MetroRegistry}: тариф, лимит абонементов и расход памяти на маршруты
+ */
+public class CityConfig {
+    private int subscriptionLimit = Metro.LIMIT_SUBSCRIPTIONS;
+    private Tariff tariff = FlatTariff.DEFAULT;
+    private TariffRules tariffRules; //null - действует tariff
+    private Duration transferPenalty = Duration.ZERO;
+    private boolean stageMatrixEnabled = true;
+    private int fareCacheCapacity;
+
+    public CityConfig setSubscriptionLimit(int subscriptionLimit) {
+        this.subscriptionLimit = subscriptionLimit;
+        return this;
+    }
+
+    public CityConfig setTariff(Tariff tariff) {
+        this.tariff = Objects.requireNonNull(tariff);
+        this.tariffRules = null;
+        return this;
+    }
+
+    /**
+     * Тариф по правилам, правила копируются
+     */
+    public CityConfig setTariff(TariffRules tariffRules) {
+        this.tariffRules = new TariffRules(tariffRules);
+        return this;
+    }
+
+    public CityConfig setTransferPenalty(Duration transferPenalty) {
+        checkTransferPenalty(transferPenalty);
+        this.transferPenalty = transferPenalty;
+        return this;
+    }
+
+    /**
+     * @see Metro#setStageMatrixEnabled(boolean)
+     */
+    public CityConfig setStageMatrixEnabled(boolean stageMatrixEnabled) {
+        this.stageMatrixEnabled = stageMatrixEnabled;
+        return this;
+    }
+
+    /**
+     * @see Metro#setFareCacheCapacity(int)
+     */
+    public CityConfig setFareCacheCapacity(int fareCacheCapacity) {
+        this.fareCacheCapacity = fareCacheCapacity;
+        return this;
+    }
+
+    protected int getSubscriptionLimit() {
+        return subscriptionLimit;
+    }
+
+    /**
+     * Применение настроек к метрополитену
+     */
+    protected void applyTo(Metro metro) {
+        if (tariffRules != null) {
+            metro.setTariff(tariffRules);
+        } else {
+            metro.setTariff(tariff);
+        }
+        metro.setTransferPenalty(transferPenalty);
+        metro.setStageMatrixEnabled(stageMatrixEnabled);
+        metro.setFareCacheCapacity(fareCacheCapacity);
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.metro.underground;
+
+/**
+ * Тариф, скомпилированный из {@link TariffRules} в плоские таблицы по идентификаторам станций.
+ * Расчет цены - несколько чтений из массивов без ветвлений по правилам и без выделения памяти
+ */
+public class CompiledTariff implements Tariff {
+    private static final int DAYS_IN_WEEK = 7;
+    private static final int EPOCH_DAY_OF_WEEK = 3; //1970-01-01 - четверг
+    private final long ticketFee;
+    private final long transferSurcharge;
+    private final long subscriptionPrice;
+    private final long[] stageRates; //Цена перегона по станции отправления
+    private final int[] zones; //Зона по станции
+    private final int zoneCount;
+    private final long[] zoneSurcharges; //Доплата по зоне отправления * zoneCount + зона назначения
+    private final int[] dayOfWeekPercents; //Процент цены по дню недели, понедельник - 0
+    private final boolean dependsOnDate;
+
+    protected CompiledTariff(long ticketFee,
+                             long transferSurcharge,
+                             long subscriptionPrice,
+                             long[] stageRates,
+                             int[] zones,
+                             int zoneCount,
+                             long[] zoneSurcharges,
+                             int[] dayOfWeekPercents) {
+        this.ticketFee = ticketFee;
+        this.transferSurcharge = transferSurcharge;
+        this.subscriptionPrice = subscriptionPrice;
+        this.stageRates = stageRates;
+        this.zones = zones;
+        this.zoneCount = zoneCount;
+        this.zoneSurcharges = zoneSurcharges;
+        this.dayOfWeekPercents = dayOfWeekPercents;
+        boolean anyDayChanged = false;
+        for (int percent : dayOfWeekPercents) {
+            anyDayChanged |= percent != 100;
+        }
+        this.dependsOnDate = anyDayChanged;
+    }
+
+    @Override
+    public long ticketFare(int fromId, int toId, int stages, int transfers, long epochDay) {
+        long fare = ticketFee
+                + stageRates[fromId] * stages
+                + transferSurcharge * transfers
+                + zoneSurcharges[zones[fromId] * zoneCount + zones[toId]];
+        int dayOfWeek = (int) Math.floorMod(epochDay + EPOCH_DAY_OF_WEEK, (long) DAYS_IN_WEEK);
+        return fare * dayOfWeekPercents[dayOfWeek] / 100;
+    }
+
+    @Override
+    public long subscriptionPrice(long epochDay) {
+        return subscriptionPrice;
+    }
+
+    @Override
+    public boolean dependsOnDate() {
+        return dependsOnDate;
+    }
+}
@@ -0,0 +1,169 @@
+package org.example.metro.underground;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
+
+/**
+ * Выручка по дням в копейках.
+ * Хранится страницами массивов по номеру страницы дня от 1970-01-01, страницы создаются при первой продаже.
+ * Номер первой страницы сдвигается при продаже раньше самой ранней даты, поэтому даты до 1970 года допустимы.
+ * Последний элемент страницы - сумма страницы, поэтому сумма за период читает не больше двух неполных страниц
+ */
+public class DailyRevenue {
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int PAGE_TOTAL = PAGE_SIZE;
+    private volatile Pages pages = new Pages(0, new AtomicLongArray[0]);
+
+    /**
+     * Добавление суммы к выручке за день
+     */
+    public void add(long epochDay, long kopecks) {
+        AtomicLongArray page = page(epochDay >> PAGE_BITS);
+        page.getAndAdd((int) (epochDay & PAGE_MASK), kopecks);
+        page.getAndAdd(PAGE_TOTAL, kopecks);
+    }
+
+    /**
+     * Выручка за день
+     */
+    public long get(long epochDay) {
+        AtomicLongArray page = pages.find(epochDay >> PAGE_BITS);
+        return page == null ? 0 : page.get((int) (epochDay & PAGE_MASK));
+    }
+
+    /**
+     * Выручка за период, обе границы включительно
+     */
+    public long sumBetween(long fromEpochDay, long toEpochDay) {
+        Pages current = pages;
+        long day = Math.max(fromEpochDay, current.firstDay());
+        long lastDay = Math.min(toEpochDay, current.lastDay());
+        long sum = 0;
+        while (day <= lastDay) {
+            AtomicLongArray page = current.find(day >> PAGE_BITS);
+            long pageEnd = (day | PAGE_MASK);
+            if (page == null) {
+                day = pageEnd + 1;
+            } else if ((day & PAGE_MASK) == 0 && pageEnd <= lastDay) {
+                sum += page.get(PAGE_TOTAL);
+                day = pageEnd + 1;
+            } else {
+                sum += page.get((int) (day & PAGE_MASK));
+                day++;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Не было ни одной продажи
+     */
+    public boolean isEmpty() {
+        return pages.array.length == 0;
+    }
+
+    /**
+     * Обход дней с продажами в порядке возрастания дат
+     */
+    public void forEach(BiConsumer<LocalDate, Long> consumer) {
+        Pages current = pages;
+        for (int pageIndex = 0; pageIndex < current.array.length; pageIndex++) {
+            AtomicLongArray page = current.array[pageIndex];
+            if (page == null) {
+                continue;
+            }
+            long pageStart = (current.firstPage + pageIndex) << PAGE_BITS;
+            for (int offset = 0; offset < PAGE_SIZE; offset++) {
+                long kopecks = page.get(offset);
+                if (kopecks != 0) {
+                    consumer.accept(LocalDate.ofEpochDay(pageStart + offset), kopecks);
+                }
+            }
+        }
+    }
+
+    /**
+     * Обход дней с продажами за период в порядке возрастания дат без выделения памяти, обе границы включительно
+     */
+    public void forEachBetween(long fromEpochDay, long toEpochDay, DayConsumer consumer) {
+        Pages current = pages;
+        long firstDay = Math.max(fromEpochDay, current.firstDay());
+        long lastDay = Math.min(toEpochDay, current.lastDay());
+        for (long pageStart = firstDay & ~PAGE_MASK; pageStart <= lastDay; pageStart += PAGE_SIZE) {
+            AtomicLongArray page = current.find(pageStart >> PAGE_BITS);
+            if (page == null || page.get(PAGE_TOTAL) == 0) {
+                continue;
+            }
+            int firstOffset = (int) (Math.max(firstDay, pageStart) - pageStart);
+            int lastOffset = (int) (Math.min(lastDay, pageStart + PAGE_MASK) - pageStart);
+            for (int offset = firstOffset; offset <= lastOffset; offset++) {
+                long kopecks = page.get(offset);
+                if (kopecks != 0) {
+                    consumer.accept(pageStart + offset, kopecks);
+                }
+            }
+        }
+    }
+
+    /**
+     * Получатель выручки за день
+     */
+    public interface DayConsumer {
+        void accept(long epochDay, long kopecks);
+    }
+
+    private AtomicLongArray page(long pageNumber) {
+        AtomicLongArray page = pages.find(pageNumber);
+        return page != null ? page : createPage(pageNumber);
+    }
+
+    private synchronized AtomicLongArray createPage(long pageNumber) {
+        Pages current = pages;
+        AtomicLongArray page = current.find(pageNumber);
+        if (page != null) {
+            return page;
+        }
+        long firstPage = current.array.length == 0 ? pageNumber : Math.min(current.firstPage, pageNumber);
+        long lastPage = current.array.length == 0 ? pageNumber : Math.max(current.firstPage + current.array.length - 1, pageNumber);
+        if (lastPage - firstPage >= Integer.MAX_VALUE) {
+            throw new RuntimeException("Дата продажи вне допустимого диапазона: " + LocalDate.ofEpochDay(pageNumber << PAGE_BITS));
+        }
+        AtomicLongArray[] array = new AtomicLongArray[(int) (lastPage - firstPage + 1)];
+        if (current.array.length > 0) {
+            System.arraycopy(current.array, 0, array, (int) (current.firstPage - firstPage), current.array.length);
+        }
+        page = new AtomicLongArray(PAGE_SIZE + 1);
+        array[(int) (pageNumber - firstPage)] = page;
+        pages = new Pages(firstPage, array);
+        return page;
+    }
+
+    /**
+     * Страницы с номером первой страницы, публикуются вместе одной ссылкой
+     */
+    private static class Pages {
+        private final long firstPage;
+        private final AtomicLongArray[] array;
+
+        private Pages(long firstPage, AtomicLongArray[] array) {
+            this.firstPage = firstPage;
+            this.array = array;
+        }
+
+        private AtomicLongArray find(long pageNumber) {
+            long index = pageNumber - firstPage;
+            return index >= 0 && index < array.length ? array[(int) index] : null;
+        }
+
+        private long firstDay() {
+            return firstPage << PAGE_BITS;
+        }
+
+        private long lastDay() {
+            return ((firstPage + array.length) << PAGE_BITS) - 1;
+        }
+    }
+}
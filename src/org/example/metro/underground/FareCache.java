@@ -0,0 +1,97 @@
+package org.example.metro.underground;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограниченный кэш цен билетов по паре станций отправления и назначения.
+ * Ключ - идентификаторы двух станций, упакованные в long. Кэш разбит на наборы по 8 записей,
+ * при заполнении набора вытесняется давно не использованная запись набора.
+ * Создается вместе со снимком сети {@link FrozenNetwork}, поэтому изменение сети сбрасывает кэш
+ */
+public class FareCache {
+    protected static final long MISSING = -1;
+    private static final int WAYS = 8;
+    private static final long EMPTY_KEY = -1;
+    private final long[] keys;
+    private final long[] fares;
+    private final long[] lastUses; //Время последнего обращения по часам набора
+    private final long[] clocks; //Часы наборов
+    private final Object[] locks;
+    private final int setMask;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    /**
+     * @param capacity наибольшее количество пар, округляется вверх до 8, умноженного на степень двойки
+     */
+    protected FareCache(int capacity, LongAdder hits, LongAdder misses) {
+        int minSets = (capacity + WAYS - 1) / WAYS;
+        int sets = minSets <= 1 ? 1 : Integer.highestOneBit(minSets - 1) << 1;
+        keys = new long[sets * WAYS];
+        fares = new long[sets * WAYS];
+        lastUses = new long[sets * WAYS];
+        clocks = new long[sets];
+        locks = new Object[sets];
+        for (int i = 0; i < sets; i++) {
+            locks[i] = new Object();
+        }
+        Arrays.fill(keys, EMPTY_KEY);
+        setMask = sets - 1;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    /**
+     * Цена билета между станциями или {@link #MISSING}
+     */
+    protected long get(int fromId, int toId) {
+        long key = key(fromId, toId);
+        int set = set(key);
+        int first = set * WAYS;
+        synchronized (locks[set]) {
+            for (int entry = first; entry < first + WAYS; entry++) {
+                if (keys[entry] == key) {
+                    lastUses[entry] = ++clocks[set];
+                    hits.increment();
+                    return fares[entry];
+                }
+            }
+        }
+        misses.increment();
+        return MISSING;
+    }
+
+    /**
+     * Запись цены с вытеснением давно не использованной пары набора
+     */
+    protected void put(int fromId, int toId, long fare) {
+        long key = key(fromId, toId);
+        int set = set(key);
+        int first = set * WAYS;
+        synchronized (locks[set]) {
+            int victim = first;
+            for (int entry = first; entry < first + WAYS; entry++) {
+                if (keys[entry] == key || keys[entry] == EMPTY_KEY) {
+                    victim = entry;
+                    break;
+                }
+                if (lastUses[entry] < lastUses[victim]) {
+                    victim = entry;
+                }
+            }
+            keys[victim] = key;
+            fares[victim] = fare;
+            lastUses[victim] = ++clocks[set];
+        }
+    }
+
+    private static long key(int fromId, int toId) {
+        return ((long) fromId << 32) | (toId & 0xFFFFFFFFL);
+    }
+
+    private int set(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & setMask;
+    }
+}
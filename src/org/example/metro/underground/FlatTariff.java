@@ -0,0 +1,33 @@
+package org.example.metro.underground;
+
+/**
+ * Единый тариф: сбор за билет плюс цена каждого перегона, одна цена абонемента
+ */
+public class FlatTariff implements Tariff {
+    public static final FlatTariff DEFAULT = new FlatTariff(20_00, 5_00, 3_000_00);
+    private final long ticketFee;
+    private final long stageRate;
+    private final long subscriptionPrice;
+
+    public FlatTariff(long ticketFee, long stageRate, long subscriptionPrice) {
+        UndergroundValidatorUtil.checkPrices(ticketFee, stageRate, subscriptionPrice);
+        this.ticketFee = ticketFee;
+        this.stageRate = stageRate;
+        this.subscriptionPrice = subscriptionPrice;
+    }
+
+    @Override
+    public long ticketFare(int fromId, int toId, int stages, int transfers, long epochDay) {
+        return ticketFee + stageRate * stages;
+    }
+
+    @Override
+    public long subscriptionPrice(long epochDay) {
+        return subscriptionPrice;
+    }
+
+    @Override
+    public boolean dependsOnDate() {
+        return false;
+    }
+}
@@ -0,0 +1,221 @@
+package org.example.metro.underground;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Неизменяемый снимок сети для расчета цен, маршрутов и проверок без блокировок.
+ * Строится изменением сети под монитором {@link Metro} и публикуется через volatile ссылку.
+ * Станции линий копируются при построении, поэтому снимок не читает изменяемые массивы линий
+ */
+public class FrozenNetwork {
+    private final Map<String, MetroLine> linesByColor;
+    private final Map<String, Station> stationsByName;
+    private final List<Station> stationsById;
+    private final Map<LineColor, List<Station>> lineStations; //Станции линий в порядке следования
+    private final int[] lineIndexes; //Порядковый номер станции на линии по идентификатору станции
+    private final Set<MetroLine> transferLines; //Линии, на или с которых есть пересадка
+    private final RouteEngine routeEngine;
+    private final boolean stageMatrixEnabled; //false - перегоны считаются поиском на каждый запрос
+    private volatile StageMatrix stageMatrix; //Строится при первом расчете перегонов
+    private final AtomicReferenceArray<TravelTimes> travelTimes; //По станции отправления, строятся при первом запросе
+    private final FareCache fareCache; //null - кэш цен выключен
+    private final Tariff tariff;
+
+    /**
+     * @param previous снимок, в который после построения только добавлялись станции в конец линий без пересадок,
+     *                 его матрица перегонов дополняется вместо построения заново; null - строится заново
+     * @param fareCache пустой кэш цен этого снимка, null - кэш выключен
+     * @param tariff    тариф, скомпилированный для станций этого снимка
+     * @param stageMatrixEnabled хранить перегоны и время между всеми парами станций
+     */
+    protected FrozenNetwork(Map<String, MetroLine> linesByColor,
+                            Map<String, Station> stationsByName,
+                            List<Station> stationsById,
+                            Duration transferPenalty,
+                            FrozenNetwork previous,
+                            FareCache fareCache,
+                            Tariff tariff,
+                            boolean stageMatrixEnabled) {
+        this.linesByColor = new HashMap<>(linesByColor);
+        this.stationsByName = new HashMap<>(stationsByName);
+        this.stationsById = List.copyOf(stationsById);
+        this.lineStations = new EnumMap<>(LineColor.class);
+        this.lineIndexes = new int[this.stationsById.size()];
+        for (MetroLine metroLine : linesByColor.values()) {
+            List<Station> stations = List.copyOf(metroLine.getStations());
+            lineStations.put(metroLine.getColor(), stations);
+            for (int i = 0; i < stations.size(); i++) {
+                lineIndexes[stations.get(i).getId()] = i;
+            }
+        }
+        this.transferLines = findTransferLines(this.stationsById);
+        this.routeEngine = new RouteEngine(this.stationsById, transferPenalty);
+        this.travelTimes = new AtomicReferenceArray<>(this.stationsById.size());
+        this.fareCache = fareCache;
+        this.tariff = tariff;
+        this.stageMatrixEnabled = stageMatrixEnabled;
+        if (stageMatrixEnabled && previous != null && previous.stageMatrix != null) {
+            StageMatrix matrix = new StageMatrix(previous.stageMatrix);
+            for (int id = previous.stationsById.size(); id < this.stationsById.size(); id++) {
+                matrix.appendStation(this.stationsById.get(id));
+            }
+            stageMatrix = matrix;
+        }
+    }
+
+    /**
+     * Станция по имени, null - станции нет
+     */
+    protected Station findStation(String stationName) {
+        return stationsByName.get(stationName);
+    }
+
+    /**
+     * Линия по цвету, null - линии нет
+     */
+    protected MetroLine findLine(String lineColor) {
+        return linesByColor.get(lineColor);
+    }
+
+    /**
+     * Цвета линий снимка в порядке перечисления
+     */
+    protected Set<LineColor> getLineColors() {
+        return Collections.unmodifiableSet(lineStations.keySet());
+    }
+
+    /**
+     * Неизменяемый список станций линии в порядке следования, null - линии нет
+     */
+    protected List<Station> getLineStations(LineColor lineColor) {
+        return lineStations.get(lineColor);
+    }
+
+    /**
+     * Порядковый номер станции на линии в этом снимке
+     */
+    protected int getLineIndex(int stationId) {
+        return lineIndexes[stationId];
+    }
+
+    /**
+     * Станции по плотным идентификаторам
+     */
+    protected List<Station> getStations() {
+        return stationsById;
+    }
+
+    /**
+     * Кэш цен снимка, null - кэш выключен
+     */
+    protected FareCache getFareCache() {
+        return fareCache;
+    }
+
+    protected Tariff getTariff() {
+        return tariff;
+    }
+
+    protected RouteEngine getRouteEngine() {
+        return routeEngine;
+    }
+
+    /**
+     * Время в пути от станции до всех станций, строится при первом обращении для станции отправления
+     */
+    protected TravelTimes getTravelTimes(int fromId) {
+        TravelTimes times = travelTimes.get(fromId);
+        if (times == null) {
+            times = routeEngine.searchTravelTimes(fromId);
+            travelTimes.set(fromId, times);
+        }
+        return times;
+    }
+
+    /**
+     * Перегоны и пересадки маршрута с наименьшим количеством перегонов в одном int
+     * {@link StageMatrix#stagesOf(int)}, {@link StageMatrix#transfersOf(int)} или {@link StageMatrix#NO_ROUTE}.
+     * Без матрицы - один поиск маршрута, на линии без пересадок - разность позиций станций. Маршрута от станции до нее самой нет в обоих режимах
+     */
+    protected int getRoute(int fromId, int toId) {
+        if (stageMatrixEnabled) {
+            return getStageMatrix().getRoute(fromId, toId);
+        }
+        if (fromId == toId) {
+            return StageMatrix.NO_ROUTE;
+        }
+        Station from = stationsById.get(fromId);
+        Station to = stationsById.get(toId);
+        MetroLine line = from.getLine();
+        if (line.equals(to.getLine()) && !transferLines.contains(line)) {
+            return StageMatrix.packRoute(Math.abs(lineIndexes[fromId] - lineIndexes[toId]), 0);
+        }
+        routeEngine.search(fromId, toId, RouteCriterion.STAGES);
+        return StageMatrix.packRoute(routeEngine.getStages(toId), routeEngine.getTransfers(toId));
+    }
+
+    /**
+     * Количество перегонов между станциями или {@link StageMatrix#NO_ROUTE}
+     */
+    protected int getStages(int fromId, int toId) {
+        return StageMatrix.stagesOf(getRoute(fromId, toId));
+    }
+
+    /**
+     * Количество пересадок на маршруте с наименьшим количеством перегонов или {@link StageMatrix#NO_ROUTE}
+     */
+    protected int getTransfers(int fromId, int toId) {
+        return StageMatrix.transfersOf(getRoute(fromId, toId));
+    }
+
+    /**
+     * Время в пути на маршруте с наименьшим количеством перегонов без учета пересадок или {@link StageMatrix#NO_ROUTE}
+     */
+    protected int getSeconds(int fromId, int toId) {
+        if (stageMatrixEnabled) {
+            return getStageMatrix().getSeconds(fromId, toId);
+        }
+        if (fromId == toId) {
+            return StageMatrix.NO_ROUTE;
+        }
+        routeEngine.search(fromId, toId, RouteCriterion.STAGES);
+        return (int) routeEngine.getSeconds(toId);
+    }
+
+    /**
+     * Линии, маршрут по которым может быть короче через другие линии
+     */
+    private static Set<MetroLine> findTransferLines(List<Station> stations) {
+        Set<MetroLine> lines = new HashSet<>();
+        for (Station station : stations) {
+            Set<Station> changeLineStations = station.getChangeLineStations();
+            if (changeLineStations != null && !changeLineStations.isEmpty()) {
+                lines.add(station.getLine());
+                for (Station changeLineStation : changeLineStations) {
+                    lines.add(changeLineStation.getLine());
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Получение матрицы перегонов, строится при первом обращении
+     */
+    protected StageMatrix getStageMatrix() {
+        StageMatrix matrix = stageMatrix;
+        if (matrix == null) {
+            matrix = new StageMatrix(stationsById.size(), routeEngine);
+            stageMatrix = matrix;
+        }
+        return matrix;
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.metro.underground;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Распределение пассажиропотоков по перегонам линий.
+ * Потоки группируются по станции отправления, для каждой станции отправления выполняется один поиск маршрутов
+ * до всех станций, и все ее потоки переносятся по дереву маршрутов за один обход.
+ * Станции отправления делятся между потоками, у каждого потока свои массивы нагрузки, в конце они складываются
+ */
+public class LoadAssignment {
+    private final FrozenNetwork network;
+    private final int[] originStarts; //Начало потоков станции отправления в destinations, индекс - идентификатор станции
+    private final int[] destinations;
+    private final long[] passengers;
+
+    protected LoadAssignment(FrozenNetwork network, OdFlows flows) {
+        int stationCount = network.getStations().size();
+        this.network = network;
+        this.originStarts = new int[stationCount + 1];
+        this.destinations = new int[flows.size()];
+        this.passengers = new long[flows.size()];
+        for (int i = 0; i < flows.size(); i++) {
+            if (flows.getOrigin(i) >= stationCount || flows.getDestination(i) >= stationCount) {
+                throw new RuntimeException("Станции с таким идентификатором нет: "
+                        + Math.max(flows.getOrigin(i), flows.getDestination(i)));
+            }
+            originStarts[flows.getOrigin(i) + 1]++;
+        }
+        for (int id = 0; id < stationCount; id++) {
+            originStarts[id + 1] += originStarts[id];
+        }
+        int[] positions = originStarts.clone();
+        for (int i = 0; i < flows.size(); i++) {
+            int position = positions[flows.getOrigin(i)]++;
+            destinations[position] = flows.getDestination(i);
+            passengers[position] = flows.getPassengers(i);
+        }
+    }
+
+    /**
+     * Распределение всех потоков по маршрутам с наименьшей стоимостью по критерию
+     *
+     * @param parallel распределять станции отправления между потоками общего пула fork-join
+     */
+    protected SegmentLoads assign(RouteCriterion criterion, boolean parallel) {
+        int stationCount = network.getStations().size();
+        IntStream origins = IntStream.range(0, stationCount)
+                .filter(id -> originStarts[id] < originStarts[id + 1]);
+        Accumulator total = (parallel ? origins.parallel() : origins).collect(
+                () -> new Accumulator(stationCount),
+                (accumulator, originId) -> accumulator.addOrigin(originId, criterion),
+                Accumulator::merge);
+        return new SegmentLoads(network, total.loads, total.unroutedPassengers);
+    }
+
+    /**
+     * Нагрузка перегонов одного потока
+     */
+    private class Accumulator {
+        private final long[] loads;
+        private final long[] demands; //Пассажиры по станциям назначения текущей станции отправления
+        private long unroutedPassengers;
+
+        private Accumulator(int stationCount) {
+            loads = new long[2 * stationCount];
+            demands = new long[stationCount];
+        }
+
+        private void addOrigin(int originId, RouteCriterion criterion) {
+            RouteEngine engine = network.getRouteEngine();
+            engine.search(originId, RouteEngine.ALL_STATIONS, criterion);
+            for (int i = originStarts[originId]; i < originStarts[originId + 1]; i++) {
+                demands[destinations[i]] += passengers[i];
+            }
+            engine.assignLoads(demands, loads);
+            for (int i = originStarts[originId]; i < originStarts[originId + 1]; i++) {
+                unroutedPassengers += demands[destinations[i]];
+                demands[destinations[i]] = 0;
+            }
+        }
+
+        private void merge(Accumulator other) {
+            for (int i = 0; i < loads.length; i++) {
+                loads[i] += other.loads[i];
+            }
+            unroutedPassengers += other.unroutedPassengers;
+        }
+    }
+}
@@ -1,66 +1,122 @@
 package org.example.metro.underground;
 
 import org.example.metro.exceptions.LineNotExistsException;
+import org.example.metro.metrics.MetroMetrics;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.function.Function;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.example.metro.underground.UndergroundValidatorUtil.checkDuration;
 import static org.example.metro.underground.UndergroundValidatorUtil.checkLineIsEmpty;
 import static org.example.metro.underground.UndergroundValidatorUtil.checkLineNotExist;
-import static org.example.metro.underground.UndergroundValidatorUtil.checkNotTheSameStations;
+import static org.example.metro.underground.UndergroundValidatorUtil.checkRouteExists;
 import static org.example.metro.underground.UndergroundValidatorUtil.checkStationNotExists;
+import static org.example.metro.underground.UndergroundValidatorUtil.checkTransferPenalty;
+import static org.example.metro.underground.util.UndergroundUtil.kopecksToRoubles;
 import static org.example.metro.underground.util.UndergroundUtil.parseTimeToDuration;
 
 /**
  * Метрополитен
  */
 public class Metro {
-    private static final int LIMIT_SUBSCRIPTIONS = 10_000;
-    private static final String TICKET_NUMBER_PATTERN = "a%04d";
+    protected static final int LIMIT_SUBSCRIPTIONS = 100_000_000;
     private final String city;
     private final Set<MetroLine> metroLines = new HashSet<>();
-    private final Map<String, Subscription> subscriptions = new HashMap<>();
-    private int countSoldSubscription = 0; //Количество проданных абонементов
+    private final Map<String, MetroLine> linesByColor = new HashMap<>(); //Индекс линий по цвету
+    private final Map<String, Station> stationsByName = new HashMap<>(); //Индекс станций по имени
+    private final List<Station> stationsById = new ArrayList<>(); //Станции по плотным идентификаторам
+    private Duration transferPenalty = Duration.ZERO; //Время пересадки между линиями
+    private volatile FrozenNetwork network; //Снимок сети для чтения, заменяется изменениями сети
+    private boolean onlyStationsAppended = true; //После последнего снимка только добавлялись станции без пересадок
+    private int editBatchDepth; //Вложенность пакетных изменений, снимок публикуется по окончании внешнего
+    private boolean networkChanged; //Сеть изменена внутри пакета, снимок еще не опубликован
+    private final SubscriptionStore subscriptions;
+    private final UnaryOperator<String> nameInterner; //Общие строки имен станций для нескольких метрополитенов
+    private final RevenueLedger revenueLedger = new RevenueLedger();
+    private volatile SalesJournal journal; //Журнал продаж, null - продажи не сохраняются
+    private final StripedReadWriteLock salesLock = new StripedReadWriteLock(); //Продажи - общая, отчеты - монопольная
+    private final MetroMetrics metrics = new MetroMetrics(); //Выключены до setEnabled(true)
+    private int fareCacheCapacity; //Пар станций в кэше цен, 0 - кэш выключен
+    private final LongAdder fareCacheHits = new LongAdder();
+    private final LongAdder fareCacheMisses = new LongAdder();
+    private Tariff tariff = FlatTariff.DEFAULT;
+    private TariffRules tariffRules; //Правила тарифа, компилируются в каждый снимок сети, null - действует tariff
+    private boolean stageMatrixEnabled = true; //Хранить перегоны между всеми парами станций
 
     public Metro(String city) {
+        this(city, LIMIT_SUBSCRIPTIONS);
+    }
+
+    /**
+     * @param subscriptionLimit наибольшее количество проданных абонементов
+     */
+    public Metro(String city, int subscriptionLimit) {
+        this(city, subscriptionLimit, UnaryOperator.identity());
+    }
+
+    /**
+     * @param nameInterner возвращает общий экземпляр равной строки имени станции
+     */
+    protected Metro(String city, int subscriptionLimit, UnaryOperator<String> nameInterner) {
         Objects.requireNonNull(city);
-        this.city = city;
+        Objects.requireNonNull(nameInterner);
+        if (subscriptionLimit <= 0 || subscriptionLimit > LIMIT_SUBSCRIPTIONS) {
+            throw new RuntimeException("Лимит абонементов должен быть от 1 до " + LIMIT_SUBSCRIPTIONS);
+        }
+        this.city = nameInterner.apply(city);
+        this.subscriptions = new SubscriptionStore(subscriptionLimit);
+        this.nameInterner = nameInterner;
+        publishNetwork();
     }
 
     /**
      * Создание линии
      */
-    public MetroLine createLine(LineColor lineColor) {
+    public synchronized MetroLine createLine(LineColor lineColor) {
         Objects.requireNonNull(lineColor);
-        checkLineNotExist(metroLines, lineColor.getValue());
+        checkLineNotExist(linesByColor, lineColor.getValue());
         MetroLine metroLine = new MetroLine(lineColor, this);
         metroLines.add(metroLine);
+        linesByColor.put(lineColor.getValue(), metroLine);
+        changeNetwork(true);
         return metroLine;
     }
 
     /**
      * Создание первой станции на линии
      */
-    public Station createFirstStation(String lineColor,
-                                      String stationName,
-                                      Set<String> changeLineStations) {
-        checkStationNotExists(metroLines, stationName);
-        MetroLine metroLine = findLineByColor(lineColor);
+    public synchronized Station createFirstStation(String lineColor,
+                                                   String stationName,
+                                                   Set<String> changeLineStations) {
+        checkStationNotExists(stationsByName, stationName);
+        MetroLine metroLine = findEditableLine(lineColor);
         checkLineIsEmpty(metroLine);
         if (changeLineStations == null) {
-            return metroLine.createFirstStation(stationName);
+            return registerStation(metroLine.createFirstStation(stationName));
         }
-        return metroLine.createFirstStation(stationName, findStations(changeLineStations));
+        return registerStation(metroLine.createFirstStation(stationName, findStations(changeLineStations)));
     }
 
 
@@ -74,20 +130,20 @@ public class Metro {
     /**
      * Создание последней станции на линии
      */
-    public Station createLastStation(String lineColor,
-                                     String stationName,
-                                     String timeToStationText,
-                                     Set<String> changeLineStations) {
-        checkStationNotExists(metroLines, stationName);
+    public synchronized Station createLastStation(String lineColor,
+                                                  String stationName,
+                                                  String timeToStationText,
+                                                  Set<String> changeLineStations) {
+        checkStationNotExists(stationsByName, stationName);
         Duration timeToNextStation = parseTimeToDuration(timeToStationText);
         checkDuration(timeToNextStation);
-        MetroLine metroLine = findLineByColor(lineColor);
+        MetroLine metroLine = findEditableLine(lineColor);
         if (changeLineStations == null) {
-            return metroLine.createLastStation(stationName, timeToNextStation);
+            return registerStation(metroLine.createLastStation(stationName, timeToNextStation));
         }
-        return metroLine.createLastStation(stationName,
+        return registerStation(metroLine.createLastStation(stationName,
                 timeToNextStation,
-                findStations(changeLineStations));
+                findStations(changeLineStations)));
     }
 
     /**
@@ -103,170 +159,703 @@ public class Metro {
      * Подсчет перегонов между станциями
      */
     protected int countStages(String stationStartName, String stationFinishName) {
-        Station stationStart = getStationByName(stationStartName);
-        Station stationFinish = getStationByName(stationFinishName);
-        MetroLine startMetroLine = stationStart.getLine();
-        MetroLine finishMetroLine = stationFinish.getLine();
-        if (startMetroLine == finishMetroLine) {
-            return countStagesOnSameLine(stationStart, stationFinish);
+        FrozenNetwork frozen = getNetwork();
+        return StageMatrix.stagesOf(countRoute(frozen, findStation(frozen, stationStartName), findStation(frozen, stationFinishName)));
+    }
+
+    /**
+     * Перегоны и пересадки маршрута, разбираются {@link StageMatrix#stagesOf(int)} и {@link StageMatrix#transfersOf(int)}
+     */
+    private int countRoute(FrozenNetwork frozen, Station stationStart, Station stationFinish) {
+        long start = metrics.startTimer();
+        try {
+            int route = frozen.getRoute(stationStart.getId(), stationFinish.getId());
+            checkRouteExists(route, stationStart, stationFinish);
+            return route;
+        } finally {
+            metrics.stopTimer(MetroMetrics.Timer.COUNT_STAGES, start);
+        }
+    }
+
+    /**
+     * Цена билета между станциями по тарифу, при включенном кэше цен и цене, не зависящей от даты, берется из кэша
+     */
+    protected long findFare(String stationStartName, String stationFinishName, long epochDay) {
+        FrozenNetwork frozen = getNetwork();
+        return findFare(frozen, findStation(frozen, stationStartName), findStation(frozen, stationFinishName), epochDay);
+    }
+
+    /**
+     * Цена билета между найденными станциями снимка сети
+     */
+    protected long findFare(FrozenNetwork frozen, Station stationStart, Station stationFinish, long epochDay) {
+        Tariff frozenTariff = frozen.getTariff();
+        FareCache fareCache = frozen.getFareCache();
+        if (fareCache == null || frozenTariff.dependsOnDate()) {
+            return countFare(frozen, frozenTariff, stationStart, stationFinish, epochDay);
+        }
+        long fare = fareCache.get(stationStart.getId(), stationFinish.getId());
+        if (fare == FareCache.MISSING) {
+            fare = countFare(frozen, frozenTariff, stationStart, stationFinish, epochDay);
+            fareCache.put(stationStart.getId(), stationFinish.getId(), fare);
+        }
+        return fare;
+    }
+
+    private long countFare(FrozenNetwork frozen,
+                           Tariff frozenTariff,
+                           Station stationStart,
+                           Station stationFinish,
+                           long epochDay) {
+        int route = countRoute(frozen, stationStart, stationFinish);
+        return frozenTariff.ticketFare(stationStart.getId(),
+                stationFinish.getId(),
+                StageMatrix.stagesOf(route),
+                StageMatrix.transfersOf(route),
+                epochDay);
+    }
+
+    /**
+     * Цена абонемента, начинающегося в указанный день
+     */
+    protected long findSubscriptionPrice(LocalDate startSubscriptionDate) {
+        return getNetwork().getTariff().subscriptionPrice(startSubscriptionDate.toEpochDay());
+    }
+
+    /**
+     * Установка тарифа, по умолчанию {@link FlatTariff#DEFAULT}. Сбрасывает кэш цен
+     */
+    public synchronized void setTariff(Tariff tariff) {
+        Objects.requireNonNull(tariff);
+        this.tariff = tariff;
+        this.tariffRules = null;
+        changeNetwork(true);
+    }
+
+    /**
+     * Установка тарифа по правилам. Правила копируются и компилируются в таблицы при каждом изменении сети,
+     * последующие изменения переданных правил не действуют до повторной установки
+     */
+    public synchronized void setTariff(TariffRules tariffRules) {
+        Objects.requireNonNull(tariffRules);
+        this.tariffRules = new TariffRules(tariffRules);
+        changeNetwork(true);
+    }
+
+    /**
+     * Размер кэша цен билетов по парам станций, 0 - кэш выключен.
+     * Кэш сбрасывается при любом изменении сети
+     */
+    public synchronized void setFareCacheCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new RuntimeException("Размер кэша цен не может быть отрицательным");
+        }
+        fareCacheCapacity = capacity;
+        changeNetwork(true);
+    }
+
+    public long getFareCacheHits() {
+        return fareCacheHits.sum();
+    }
+
+    public long getFareCacheMisses() {
+        return fareCacheMisses.sum();
+    }
+
+    /**
+     * Время в пути по маршруту с наименьшим количеством перегонов, по которому считается цена билета.
+     * Складывается только время перегонов, время пересадок не входит, в отличие от {@link #findFastestTravelTime(String, String)}
+     */
+    public Duration countTravelTime(String stationStartName, String stationFinishName) {
+        FrozenNetwork frozen = getNetwork();
+        Station stationStart = findStation(frozen, stationStartName);
+        Station stationFinish = findStation(frozen, stationFinishName);
+        int seconds = frozen.getSeconds(stationStart.getId(), stationFinish.getId());
+        checkRouteExists(seconds, stationStart, stationFinish);
+        return Duration.ofSeconds(seconds);
+    }
+
+    /**
+     * Поиск маршрута между станциями с любым количеством пересадок
+     */
+    public List<Station> findRoute(String stationStartName, String stationFinishName, RouteCriterion criterion) {
+        Objects.requireNonNull(criterion);
+        FrozenNetwork frozen = getNetwork();
+        Station stationStart = findStation(frozen, stationStartName);
+        Station stationFinish = findStation(frozen, stationFinishName);
+        RouteEngine engine = frozen.getRouteEngine();
+        boolean found = engine.search(stationStart.getId(), stationFinish.getId(), criterion);
+        checkRouteExists(found ? 0 : RouteEngine.NO_ROUTE, stationStart, stationFinish);
+        return engine.getPath(stationFinish.getId());
+    }
+
+    /**
+     * Наименьшее время в пути между станциями с учетом времени пересадок {@link #setTransferPenalty(Duration)}.
+     * Время от станции отправления до всех станций считается при первом запросе и хранится до изменения сети
+     */
+    public Duration findFastestTravelTime(String stationStartName, String stationFinishName) {
+        FrozenNetwork frozen = getNetwork();
+        Station stationStart = findStation(frozen, stationStartName);
+        Station stationFinish = findStation(frozen, stationFinishName);
+        int seconds = frozen.getTravelTimes(stationStart.getId()).getSeconds(stationFinish.getId());
+        checkRouteExists(seconds, stationStart, stationFinish);
+        return Duration.ofSeconds(seconds);
+    }
+
+    /**
+     * Станции, достижимые от станции не дольше указанного времени с учетом времени пересадок,
+     * с временем в пути в порядке возрастания времени, включая станцию отправления
+     */
+    public Map<String, Duration> findIsochrone(String stationStartName, Duration maxTravelTime) {
+        Objects.requireNonNull(maxTravelTime);
+        if (maxTravelTime.isNegative()) {
+            throw new RuntimeException("Время в пути не может быть отрицательным");
+        }
+        FrozenNetwork frozen = getNetwork();
+        Station stationStart = findStation(frozen, stationStartName);
+        TravelTimes times = frozen.getTravelTimes(stationStart.getId());
+        int count = times.countReachable(maxTravelTime.getSeconds());
+        Map<String, Duration> isochrone = new LinkedHashMap<>(count * 2);
+        for (int rank = 0; rank < count; rank++) {
+            isochrone.put(frozen.getStations().get(times.getStationIdByRank(rank)).getName(),
+                    Duration.ofSeconds(times.getSecondsByRank(rank)));
+        }
+        return isochrone;
+    }
+
+    /**
+     * Хранение перегонов и времени между всеми парами станций: 8 байт на пару станций, расчет цены за O(1).
+     * Без матрицы перегоны считаются поиском маршрута при каждой продаже, память не зависит от количества пар.
+     * По умолчанию включено
+     */
+    public synchronized void setStageMatrixEnabled(boolean enabled) {
+        stageMatrixEnabled = enabled;
+        changeNetwork(false);
+    }
+
+    /**
+     * Установка времени пересадки между линиями, учитывается при поиске маршрутов
+     */
+    public synchronized void setTransferPenalty(Duration transferPenalty) {
+        checkTransferPenalty(transferPenalty);
+        this.transferPenalty = transferPenalty;
+        changeNetwork(false);
+    }
+
+    /**
+     * Изменение пересадок станции
+     */
+    protected synchronized void changeLineStations(Station station, Set<Station> changeLineStations) {
+        station.assignChangeLineStations(changeLineStations);
+        changeNetwork(false);
+    }
+
+    /**
+     * Снимок сети для чтения без блокировок. Снимок строится изменением сети и публикуется одной записью volatile поля,
+     * чтение никогда не ждет монитор метрополитена
+     */
+    protected FrozenNetwork getNetwork() {
+        return network;
+    }
+
+    /**
+     * Построение и публикация снимка текущей сети, вызывается при удержании монитора метрополитена
+     */
+    private void publishNetwork() {
+        FrozenNetwork previous = onlyStationsAppended ? network : null;
+        FareCache fareCache = fareCacheCapacity == 0
+                ? null
+                : new FareCache(fareCacheCapacity, fareCacheHits, fareCacheMisses);
+        Tariff frozenTariff = tariffRules == null ? tariff : tariffRules.compile(stationsById);
+        FrozenNetwork frozen = new FrozenNetwork(linesByColor, stationsByName, stationsById, transferPenalty, previous,
+                fareCache, frozenTariff, stageMatrixEnabled);
+        onlyStationsAppended = true;
+        networkChanged = false;
+        network = frozen;
+    }
+
+    /**
+     * Публикация нового снимка после изменения, внутри пакета изменений - по окончании пакета.
+     * Вызывается при удержании монитора метрополитена
+     *
+     * @param stationsAppended изменение только добавило станции в конец линий без пересадок
+     */
+    private void changeNetwork(boolean stationsAppended) {
+        onlyStationsAppended &= stationsAppended;
+        if (editBatchDepth == 0) {
+            publishNetwork();
+        } else {
+            networkChanged = true;
         }
-        Station changeLineStationStart = findChangeLineStation(startMetroLine, finishMetroLine);
-        Station changeLineStationFinish = findChangeLineStation(finishMetroLine, startMetroLine);
-        return countStagesOnSameLine(stationStart, changeLineStationStart)
-                + countStagesOnSameLine(stationFinish, changeLineStationFinish);
     }
 
     /**
      * Обновление абонемента
      */
     protected void refreshSubscription(String subscriptionNumber, LocalDate startSubscriptionDate) {
-        if (!subscriptions.containsKey(subscriptionNumber)) {
+        int id = SubscriptionStore.parseNumber(subscriptionNumber);
+        if (id == SubscriptionStore.NOT_FOUND || !subscriptions.setStartDate(id, startSubscriptionDate)) {
+            metrics.increment(MetroMetrics.Counter.SUBSCRIPTION_LOOKUP_FAILURES);
             throw new RuntimeException("Абонемент не существует");
         }
-        subscriptions.get(subscriptionNumber).setStartDate(startSubscriptionDate);
+        journalSubscription(id, startSubscriptionDate);
     }
 
     /**
      * Покупка абонемента
      */
     protected Subscription addSubscription(LocalDate startSubscriptionDate) {
-        String subscriptionNumber = generateNewSubscriptionNumber();
-        Subscription subscription = new Subscription(subscriptionNumber, startSubscriptionDate);
-        return subscriptions.put(subscriptionNumber, subscription);
+        int id = subscriptions.add(startSubscriptionDate);
+        journalSubscription(id, startSubscriptionDate);
+        return new Subscription(subscriptions, id);
+    }
+
+    /**
+     * Продажа пакета билетов, каждый билет учитывается в кассе станции отправления.
+     * Выручка всех касс записывается после расчета всех цен и видна в отчетах одновременно
+     */
+    public void sellTickets(Collection<TicketSale> ticketSales) {
+        FrozenNetwork frozen = getNetwork();
+        Map<String, Station> batchStations = new HashMap<>();
+        Map<Cashier, SalesBatch> batches = new HashMap<>();
+        for (TicketSale ticketSale : ticketSales) {
+            Station stationStart = findStation(frozen, ticketSale.getStartStation(), batchStations);
+            Station stationFinish = findStation(frozen, ticketSale.getFinishStation(), batchStations);
+            Cashier cashier = stationStart.getCashier();
+            cashier.priceTicket(frozen,
+                    stationStart,
+                    stationFinish,
+                    ticketSale.getDate(),
+                    batches.computeIfAbsent(cashier, key -> new SalesBatch()));
+        }
+        Lock lock = salesLock.lockShared();
+        try {
+            batches.forEach(Cashier::addValues);
+        } finally {
+            lock.unlock();
+        }
+        metrics.add(MetroMetrics.Counter.TICKETS_SOLD, ticketSales.size());
     }
 
     /**
      * Печать доходов метро за каждый день
      */
     public void printAllIncomes() {
+        Map<LocalDate, Long> incomes;
+        salesLock.lockExclusive();
+        try {
+            incomes = revenueLedger.getDailyIncomes();
+        } finally {
+            salesLock.unlockExclusive();
+        }
         System.out.println("Доходы метро по датам");
-        metroLines.stream()
-                .flatMap(metroLine -> metroLine.getStations().stream())
-                .flatMap(station -> station.getCashier().getSales().entrySet().stream())
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        BigDecimal::add))
-                .entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .forEach(System.out::println);
+        incomes.forEach((date, kopecks) -> System.out.println(date + "=" + kopecksToRoubles(kopecks)));
     }
 
     /**
-     * Проверка действительности абонемента
+     * Доход метро за период, обе даты включительно
      */
-    public boolean isSubscriptionActive(String subscriptionNumber, LocalDate checkDate) {
-        if (subscriptions.containsKey(subscriptionNumber)) {
-            LocalDate startDate = subscriptions.get(subscriptionNumber).getStartDate();
-            return (startDate.isAfter(checkDate) || startDate.isEqual(checkDate))
-                    && startDate.plus(1, ChronoUnit.MONTHS).isBefore(checkDate);
+    public BigDecimal incomeBetween(LocalDate from, LocalDate to) {
+        return kopecksToRoubles(revenueLedger.sumBetween(from.toEpochDay(), to.toEpochDay()));
+    }
+
+    /**
+     * Доходы линий за период, обе даты включительно
+     */
+    public Map<LineColor, BigDecimal> incomeByLine(LocalDate from, LocalDate to) {
+        Map<LineColor, BigDecimal> incomes = new EnumMap<>(LineColor.class);
+        for (LineColor lineColor : getNetwork().getLineColors()) {
+            long kopecks = revenueLedger.lineSumBetween(lineColor, from.toEpochDay(), to.toEpochDay());
+            incomes.put(lineColor, kopecksToRoubles(kopecks));
         }
-        return false;
+        return incomes;
     }
 
     /**
-     * Создание номера абонемента
+     * Доходы касс станций за период, обе даты включительно
      */
-    private String generateNewSubscriptionNumber() {
-        if (countSoldSubscription >= LIMIT_SUBSCRIPTIONS) {
-            throw new RuntimeException("Исчерпан лимит количества абонементов");
+    public Map<String, BigDecimal> incomeByStation(LocalDate from, LocalDate to) {
+        Map<String, BigDecimal> incomes = new HashMap<>();
+        for (Station station : getNetwork().getStations()) {
+            Cashier cashier = station.findCashier();
+            long kopecks = cashier == null ? 0 : cashier.getIncomeBetween(from.toEpochDay(), to.toEpochDay());
+            incomes.put(station.getName(), kopecksToRoubles(kopecks));
         }
-        countSoldSubscription++;
-        return String.format(TICKET_NUMBER_PATTERN, countSoldSubscription);
+        return incomes;
+    }
+
+    /**
+     * Отчет о выручке касс всех станций за период, обе даты включительно. Кассы обходятся параллельно
+     */
+    public RevenueReport analyzeRevenue(LocalDate from, LocalDate to) {
+        return analyzeRevenue(from, to, true);
     }
 
     /**
-     * Поиск станции для пересадки между линиями
+     * Отчет о выручке касс всех станций за период, обе даты включительно.
+     * Параллельный обход делит станции между потоками общего пула fork-join и совпадает с последовательным.
+     * Продажи приостанавливаются только на копирование дней периода из касс, чтобы итоги линий и станций сходились,
+     * обход копий идет без блокировки
+     *
+     * @param parallel обходить кассы параллельно
      */
-    private Station findChangeLineStation(MetroLine metroLineStart, MetroLine metroLineChange) {
-        return metroLineStart.getStations().stream()
-                .filter(station -> stationHasChangeToLine(station, metroLineChange))
-                .findFirst()
-                .orElseThrow(
-                        () -> new RuntimeException("Нет станций с пересадкой на линию: "
-                            + metroLineChange.getColor())
-                );
+    public RevenueReport analyzeRevenue(LocalDate from, LocalDate to, boolean parallel) {
+        Objects.requireNonNull(from);
+        Objects.requireNonNull(to);
+        FrozenNetwork frozen = getNetwork();
+        List<Station> stations = frozen.getStations();
+        long fromEpochDay = from.toEpochDay();
+        long toEpochDay = to.toEpochDay();
+        SparseDailyRevenue[] sales = new SparseDailyRevenue[stations.size()];
+        salesLock.lockExclusive();
+        try {
+            for (int id = 0; id < sales.length; id++) {
+                Cashier cashier = stations.get(id).findCashier();
+                if (cashier != null) {
+                    sales[id] = cashier.copySalesBetween(fromEpochDay, toEpochDay);
+                }
+            }
+        } finally {
+            salesLock.unlockExclusive();
+        }
+        IntStream stationIds = IntStream.range(0, stations.size());
+        RevenueAccumulator accumulator = (parallel ? stationIds.parallel() : stationIds).collect(
+                () -> new RevenueAccumulator(stations),
+                (stationAccumulator, id) -> stationAccumulator.addStation(id, sales[id]),
+                RevenueAccumulator::merge);
+        return new RevenueReport(accumulator, frozen.getLineColors(), stations);
     }
 
     /**
-     * У станции есть возможность пересесть на указанную линию
+     * Дни с наибольшим доходом метро по убыванию дохода.
+     * Как и печать доходов, читает список дней под монопольной блокировкой продаж
      */
-    private boolean stationHasChangeToLine(Station station, MetroLine metroLineChange) {
-        return station.getChangeLineStations() != null
-                && getChangeLinesFromStation(station).contains(metroLineChange);
+    public List<Map.Entry<LocalDate, BigDecimal>> topIncomeDays(int count) {
+        List<Map.Entry<LocalDate, Long>> topDays;
+        salesLock.lockExclusive();
+        try {
+            topDays = revenueLedger.getTopDays(count);
+        } finally {
+            salesLock.unlockExclusive();
+        }
+        List<Map.Entry<LocalDate, BigDecimal>> days = new ArrayList<>();
+        for (Map.Entry<LocalDate, Long> day : topDays) {
+            days.add(Map.entry(day.getKey(), kopecksToRoubles(day.getValue())));
+        }
+        return days;
     }
 
     /**
-     * Получение линий на пересадку у станции
+     * Распределение пассажиропотоков по перегонам линий по маршрутам с наименьшей стоимостью по критерию.
+     * Станции отправления распределяются между потоками общего пула fork-join
      */
-    private Set<MetroLine> getChangeLinesFromStation(Station station) {
-        return station.getChangeLineStations().stream()
-                .map(Station::getLine)
-                .collect(Collectors.toSet());
+    public SegmentLoads assignLoads(OdFlows flows, RouteCriterion criterion) {
+        return assignLoads(flows, criterion, true);
     }
 
     /**
-     * Подсчет количества перегонов между станциями в рамках одной линии
+     * Распределение пассажиропотоков по перегонам линий, результат не зависит от параллельности
+     *
+     * @param parallel распределять станции отправления между потоками
      */
-    private int countStagesOnSameLine(Station stationStart, Station stationFinish) {
-        checkNotTheSameStations(stationStart, stationFinish);
+    public SegmentLoads assignLoads(OdFlows flows, RouteCriterion criterion, boolean parallel) {
+        Objects.requireNonNull(flows);
+        Objects.requireNonNull(criterion);
+        return new LoadAssignment(getNetwork(), flows).assign(criterion, parallel);
+    }
 
-        int nextStation = countRunsHelper(stationStart,
-                stationFinish, Station::getNextStation);
-        if (nextStation > 0) {
-            return nextStation;
+    /**
+     * Запуск приема событий входа и выхода пассажиров по станциям, существующим на момент запуска
+     *
+     * @param bucketWidth   ширина корзины времени, наименьшее окно запроса
+     * @param bucketCount   количество хранимых корзин
+     * @param consumerCount количество потоков-обработчиков событий
+     */
+    public RidershipStream openRidership(Duration bucketWidth, int bucketCount, int consumerCount) {
+        return new RidershipStream(getNetwork(), bucketWidth, bucketCount, consumerCount);
+    }
+
+    /**
+     * Открытие журнала продаж с восстановлением выручки касс и абонементов.
+     * Открывается до первой продажи, станции должны быть созданы в том же порядке, что и при записи журнала.
+     * Если журнал не соответствует сети, выручка восстанавливается частично и метрополитен нужно создать заново
+     *
+     * @param forceInterval период сброса журнала на диск, 0 - только при закрытии и {@link #syncJournal()}
+     */
+    public synchronized void openJournal(Path directory, Duration forceInterval) {
+        Objects.requireNonNull(directory);
+        Objects.requireNonNull(forceInterval);
+        if (journal != null) {
+            throw new RuntimeException("Журнал продаж уже открыт");
         }
+        salesLock.lockExclusive();
+        try {
+            if (!revenueLedger.isEmpty() || subscriptions.size() > 0) {
+                throw new RuntimeException("Журнал продаж открывается только до первой продажи");
+            }
+            List<Station> stations = getNetwork().getStations();
+            journal = SalesJournal.open(directory, forceInterval, new SalesJournal.Replayer() {
+                @Override
+                public void onSale(int stationId, long epochDay, long kopecks) {
+                    if (stationId < 0 || stationId >= stations.size()) {
+                        throw new RuntimeException("Журнал продаж не соответствует сети: нет станции с номером " + stationId);
+                    }
+                    stations.get(stationId).getCashier().restoreValue(epochDay, kopecks);
+                }
 
-        int prevStation = countRunsHelper(stationStart,
-                stationFinish, Station::getPrevStation);
-        if (prevStation > 0) {
-            return prevStation;
+                @Override
+                public void onSubscription(int subscriptionId, long epochDay) {
+                    subscriptions.restore(subscriptionId, LocalDate.ofEpochDay(epochDay));
+                }
+            });
+        } finally {
+            salesLock.unlockExclusive();
         }
-        throw new RuntimeException(
-                "Станции %s %s не на одной линии".formatted(stationStart.getName(), stationFinish.getName())
-        );
     }
 
     /**
-     * Подсчет перегонов между станциями в одну сторону
+     * Ожидание сброса на диск всех продаж, записанных в журнал до вызова.
+     * Продажи всех ожидающих потоков сбрасываются вместе одним сбросом
      */
-    private int countRunsHelper(Station stationStart,
-                                Station stationFinish,
-                                Function<Station, Station> getNextStationFunc) {
-        Station nextStation = getNextStationFunc.apply(stationStart);
-        int count = 0;
-        while (true) {
-            if (nextStation == stationStart) {
-                throw new RuntimeException("Бесконечный цикл поиска пути между станциями %s %s"
-                                .formatted(stationStart.getName(), stationFinish.getName()));
-            }
-            count++;
-            if (nextStation == null) {
-                return -1;
+    public void syncJournal() {
+        SalesJournal current = journal;
+        if (current != null) {
+            current.awaitDurable(current.getPosition());
+        }
+    }
+
+    /**
+     * Закрытие журнала продаж со сбросом записей на диск
+     */
+    public synchronized void closeJournal() {
+        SalesJournal current = journal;
+        if (current != null) {
+            journal = null;
+            current.close();
+        }
+    }
+
+    protected SalesJournal getJournal() {
+        return journal;
+    }
+
+    private void journalSubscription(int id, LocalDate startSubscriptionDate) {
+        SalesJournal current = journal;
+        if (current != null) {
+            current.appendSubscription(id, startSubscriptionDate.toEpochDay());
+        }
+    }
+
+    /**
+     * Общий экземпляр имени станции
+     */
+    protected String internName(String stationName) {
+        return nameInterner.apply(stationName);
+    }
+
+    /**
+     * Журнал выручки по линиям и дням
+     */
+    protected RevenueLedger getRevenueLedger() {
+        return revenueLedger;
+    }
+
+    /**
+     * Проверка действительности абонемента
+     */
+    public boolean isSubscriptionActive(String subscriptionNumber, LocalDate checkDate) {
+        long start = metrics.startTimer();
+        boolean active = subscriptions.isActive(SubscriptionStore.parseNumber(subscriptionNumber), checkDate.toEpochDay());
+        metrics.stopTimer(MetroMetrics.Timer.CHECK_SUBSCRIPTION, start);
+        metrics.increment(MetroMetrics.Counter.SUBSCRIPTION_CHECKS);
+        return active;
+    }
+
+    /**
+     * Проверка действительности пакета абонементов на одну дату
+     *
+     * @param results результаты проверки по индексам номеров, длина не меньше количества номеров
+     * @return количество действующих абонементов
+     */
+    public int checkSubscriptions(String[] subscriptionNumbers, LocalDate checkDate, boolean[] results) {
+        long checkEpochDay = checkDate.toEpochDay();
+        int activeCount = 0;
+        for (int i = 0; i < subscriptionNumbers.length; i++) {
+            boolean active = subscriptions.isActive(SubscriptionStore.parseNumber(subscriptionNumbers[i]), checkEpochDay);
+            results[i] = active;
+            if (active) {
+                activeCount++;
             }
-            if (nextStation == stationFinish) {
-                return count;
+        }
+        metrics.add(MetroMetrics.Counter.SUBSCRIPTION_CHECKS, subscriptionNumbers.length);
+        return activeCount;
+    }
+
+    /**
+     * Счетчики и задержки операций, включаются {@link MetroMetrics#setEnabled(boolean)}
+     */
+    public MetroMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Блокировка продаж: общая для касс, монопольная для отчетов
+     */
+    protected StripedReadWriteLock getSalesLock() {
+        return salesLock;
+    }
+
+    /**
+     * Сохранение линий, станций, пересадок и абонементов в двоичный снимок
+     */
+    public synchronized void saveSnapshot(Path file) {
+        MetroSnapshot.write(this, file);
+    }
+
+    /**
+     * Загрузка метрополитена из двоичного снимка с лимитом абонементов из снимка, остальные настройки по умолчанию
+     */
+    public static Metro loadSnapshot(Path file) {
+        return MetroSnapshot.read(file, UnaryOperator.identity());
+    }
+
+    /**
+     * Загрузка сети из CSV: строка на станцию в порядке следования по линии.
+     * Файл разбирается без блокировки, монитор метрополитена удерживается только на проверке по сети и загрузке
+     *
+     * @see MetroImporter
+     */
+    public void importNetwork(Reader reader) {
+        applyImport(MetroImporter.parse(reader));
+    }
+
+    /**
+     * Загрузка разобранного файла одним пакетом изменений: снимок сети строится один раз после загрузки
+     */
+    private synchronized void applyImport(MetroImporter importer) {
+        editBatchDepth++;
+        try {
+            importer.apply(this);
+        } finally {
+            editBatchDepth--;
+            if (editBatchDepth == 0 && networkChanged) {
+                publishNetwork();
             }
-            nextStation = getNextStationFunc.apply(nextStation);
         }
     }
 
+    /**
+     * Загрузка сети из CSV файла
+     */
+    public void importNetwork(Path file) {
+        try (Reader reader = Files.newBufferedReader(file)) {
+            importNetwork(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Создание станции после последней станции линии без проверок имени и времени перегона
+     *
+     * @param prevStation последняя станция линии, null - создается первая станция
+     */
+    protected synchronized Station loadStation(MetroLine metroLine, Station prevStation, String stationName, Duration timeToStation) {
+        if (prevStation == null) {
+            return registerStation(metroLine.createFirstStation(stationName));
+        }
+        return registerStation(metroLine.createNextStation(prevStation, stationName, timeToStation, null));
+    }
+
+    /**
+     * Существует ли станция с таким именем
+     */
+    protected boolean hasStation(String stationName) {
+        return stationsByName.containsKey(stationName);
+    }
+
+    /**
+     * Линия по цвету, null - линия не создана
+     */
+    protected MetroLine getLine(LineColor lineColor) {
+        return linesByColor.get(lineColor.getValue());
+    }
+
+    protected String getCity() {
+        return city;
+    }
+
+    /**
+     * Линии в порядке цветов, вызывается при удержании монитора метрополитена
+     */
+    protected List<MetroLine> getMetroLines() {
+        List<MetroLine> lines = new ArrayList<>(metroLines);
+        lines.sort(Comparator.comparing(MetroLine::getColor));
+        return lines;
+    }
+
+    protected List<Station> getStationsById() {
+        return stationsById;
+    }
+
+    protected SubscriptionStore getSubscriptions() {
+        return subscriptions;
+    }
+
     /**
      * Получение станции по имени
      */
     public Station getStationByName(String stationName) {
-        return metroLines.stream()
-                .flatMap(metroLine -> metroLine.getStations().stream())
-                .filter(station -> Objects.equals(station.getName(), stationName))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Станции с таким именем нет: " + stationName));
+        return findStation(getNetwork(), stationName);
+    }
+
+    /**
+     * Получение станции по имени при изменении сети
+     */
+    protected Station findEditableStation(String stationName) {
+        return checkStationFound(stationsByName.get(stationName), stationName);
+    }
+
+    private Station findStation(FrozenNetwork frozen, String stationName) {
+        return checkStationFound(frozen.findStation(stationName), stationName);
+    }
+
+    /**
+     * Получение станции пакета продаж, каждое имя ищется в снимке сети один раз на пакет
+     */
+    protected Station findStation(FrozenNetwork frozen, String stationName, Map<String, Station> batchStations) {
+        Station station = batchStations.get(stationName);
+        if (station == null) {
+            station = findStation(frozen, stationName);
+            batchStations.put(stationName, station);
+        }
+        return station;
+    }
+
+    private Station checkStationFound(Station station, String stationName) {
+        if (station == null) {
+            metrics.increment(MetroMetrics.Counter.STATION_LOOKUP_FAILURES);
+            throw new RuntimeException("Станции с таким именем нет: " + stationName);
+        }
+        return station;
+    }
+
+    /**
+     * Добавление станции в индексы и матрицу перегонов
+     */
+    private Station registerStation(Station station) {
+        station.setId(stationsById.size());
+        stationsById.add(station);
+        stationsByName.put(station.getName(), station);
+        changeNetwork(station.getChangeLineStations() == null || station.getChangeLineStations().isEmpty());
+        return station;
     }
 
     /**
      * Преобразования списка названий станций, в список станций
      */
     private Set<Station> findStations(Set<String> stationNames) {
-        return stationNames.stream().map(this::getStationByName).collect(Collectors.toSet());
+        return stationNames.stream().map(this::findEditableStation).collect(Collectors.toSet());
     }
 
 
@@ -274,17 +863,28 @@ public class Metro {
      * Получение линии по цвету
      */
     public MetroLine findLineByColor(String lineColor) {
-        return metroLines.stream()
-                .filter(metroLine -> Objects.equals(metroLine.getColor().getValue(), lineColor))
-                .findFirst()
-                .orElseThrow(() -> new LineNotExistsException(lineColor));
+        return checkLineFound(getNetwork().findLine(lineColor), lineColor);
+    }
+
+    /**
+     * Получение линии по цвету при изменении сети
+     */
+    private MetroLine findEditableLine(String lineColor) {
+        return checkLineFound(linesByColor.get(lineColor), lineColor);
+    }
+
+    private static MetroLine checkLineFound(MetroLine metroLine, String lineColor) {
+        if (metroLine == null) {
+            throw new LineNotExistsException(lineColor);
+        }
+        return metroLine;
     }
 
     @Override
-    public String toString() {
+    public synchronized String toString() {
         return "Metro{" +
                 "city='" + city + '\'' +
-                ", lines=" + metroLines +
+                ", lines=" + getMetroLines() +
                 '}';
     }
 }
@@ -0,0 +1,216 @@
+package org.example.metro.underground;
+
+import org.example.metro.exceptions.LineNotExistsException;
+import org.example.metro.exceptions.StationAlreadyExistsException;
+import org.example.metro.exceptions.StationNotExistsException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.example.metro.underground.UndergroundValidatorUtil.checkDuration;
+import static org.example.metro.underground.util.UndergroundUtil.parseTimeToDuration;
+
+/**
+ * Пакетная загрузка сети из CSV с разделителем ';', строка на станцию в порядке следования по линии:
+ * <pre>
+ * # линия;станция;время от предыдущей станции;пересадки через ','
+ * Красная;Спортивная;;
+ * Красная;Пермь 1;3M;Тяжмаш
+ * Синяя;Тяжмаш;1M47S;Пермь 1
+ * </pre>
+ * Время не указывается только у первой станции линии, пересадки могут ссылаться на станции ниже по файлу.
+ * Файл проверяется целиком до изменения метрополитена, линии создаются при первом упоминании
+ */
+public class MetroImporter {
+    private static final char SEPARATOR = ';';
+    private static final String TRANSFER_SEPARATOR = ",";
+    private static final String COMMENT = "#";
+    private static final Map<String, LineColor> COLORS_BY_VALUE = new HashMap<>();
+
+    static {
+        for (LineColor lineColor : LineColor.values()) {
+            COLORS_BY_VALUE.put(lineColor.getValue(), lineColor);
+        }
+    }
+
+    private final List<Row> rows;
+
+    private MetroImporter(List<Row> rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * Потоковый разбор строк без обращения к метрополитену: формат, время перегонов и повторы имен в файле
+     */
+    protected static MetroImporter parse(Reader reader) {
+        List<Row> rows = new ArrayList<>();
+        Set<String> stationNames = new HashSet<>();
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        try {
+            int lineNumber = 0;
+            for (String text = lines.readLine(); text != null; text = lines.readLine()) {
+                lineNumber++;
+                if (text.isBlank() || text.startsWith(COMMENT)) {
+                    continue;
+                }
+                try {
+                    Row row = parseRow(text, lineNumber);
+                    if (!stationNames.add(row.stationName)) {
+                        throw new StationAlreadyExistsException(row.stationName);
+                    }
+                    rows.add(row);
+                } catch (RuntimeException e) {
+                    throw new RuntimeException("Строка %d: %s".formatted(lineNumber, e.getMessage()), e);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new MetroImporter(rows);
+    }
+
+    /**
+     * Проверка строк по текущей сети и загрузка, вызывается при удержании монитора метрополитена
+     */
+    protected void apply(Metro metro) {
+        check(metro);
+        build(metro);
+    }
+
+    /**
+     * Проверка имен станций, времени первых станций линий и ссылок на пересадки по текущей сети
+     */
+    private void check(Metro metro) {
+        Set<String> stationNames = new HashSet<>();
+        boolean[] lineHasStations = new boolean[LineColor.values().length];
+        for (LineColor lineColor : LineColor.values()) {
+            MetroLine metroLine = metro.getLine(lineColor);
+            lineHasStations[lineColor.ordinal()] = metroLine != null && metroLine.getLastStation() != null;
+        }
+        for (Row row : rows) {
+            if (metro.hasStation(row.stationName)) {
+                throw rowException(row, new StationAlreadyExistsException(row.stationName));
+            }
+            int colorIndex = row.lineColor.ordinal();
+            if (lineHasStations[colorIndex] == (row.timeToStation == null)) {
+                throw rowException(row, new RuntimeException(lineHasStations[colorIndex]
+                        ? "Не указано время от предыдущей станции"
+                        : "У первой станции линии не указывается время"));
+            }
+            lineHasStations[colorIndex] = true;
+            stationNames.add(row.stationName);
+        }
+        for (Row row : rows) {
+            for (String changeStationName : row.changeLineStations) {
+                if (!stationNames.contains(changeStationName) && !metro.hasStation(changeStationName)) {
+                    throw rowException(row, new StationNotExistsException(changeStationName));
+                }
+            }
+        }
+    }
+
+    private static RuntimeException rowException(Row row, RuntimeException e) {
+        return new RuntimeException("Строка %d: %s".formatted(row.lineNumber, e.getMessage()), e);
+    }
+
+    private static Row parseRow(String text, int lineNumber) {
+        String[] fields = new String[4];
+        int fieldStart = 0;
+        for (int i = 0; i < fields.length; i++) {
+            int fieldEnd = text.indexOf(SEPARATOR, fieldStart);
+            if (fieldEnd < 0 || i == fields.length - 1) {
+                fieldEnd = text.length();
+            }
+            fields[i] = fieldStart <= text.length() ? text.substring(fieldStart, fieldEnd).trim() : "";
+            fieldStart = fieldEnd + 1;
+        }
+        LineColor lineColor = COLORS_BY_VALUE.get(fields[0]);
+        if (lineColor == null) {
+            throw new LineNotExistsException(fields[0]);
+        }
+        if (fields[1].isEmpty()) {
+            throw new RuntimeException("Не указано название станции");
+        }
+        Duration timeToStation = null;
+        if (!fields[2].isEmpty()) {
+            timeToStation = parseTimeToDuration(fields[2]);
+            checkDuration(timeToStation);
+        }
+        List<String> changeLineStations = new ArrayList<>();
+        if (!fields[3].isEmpty()) {
+            for (String changeStationName : fields[3].split(TRANSFER_SEPARATOR)) {
+                changeLineStations.add(changeStationName.trim());
+            }
+        }
+        return new Row(lineNumber, lineColor, fields[1], timeToStation, changeLineStations);
+    }
+
+    /**
+     * Создание линий и станций, затем связывание пересадок
+     */
+    private void build(Metro metro) {
+        Station[] lastStations = new Station[LineColor.values().length];
+        MetroLine[] metroLines = new MetroLine[LineColor.values().length];
+        for (LineColor lineColor : LineColor.values()) {
+            MetroLine metroLine = metro.getLine(lineColor);
+            metroLines[lineColor.ordinal()] = metroLine;
+            if (metroLine != null) {
+                lastStations[lineColor.ordinal()] = metroLine.getLastStation();
+            }
+        }
+        Station[] stations = new Station[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            int colorIndex = row.lineColor.ordinal();
+            if (metroLines[colorIndex] == null) {
+                metroLines[colorIndex] = metro.createLine(row.lineColor);
+            }
+            stations[i] = metro.loadStation(metroLines[colorIndex], lastStations[colorIndex],
+                    row.stationName, row.timeToStation);
+            lastStations[colorIndex] = stations[i];
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            List<String> changeStationNames = rows.get(i).changeLineStations;
+            if (changeStationNames.isEmpty()) {
+                continue;
+            }
+            Set<Station> changeLineStations = new HashSet<>();
+            for (String changeStationName : changeStationNames) {
+                changeLineStations.add(metro.findEditableStation(changeStationName));
+            }
+            stations[i].setChangeLineStations(changeLineStations);
+        }
+    }
+
+    /**
+     * Проверенная строка файла
+     */
+    private static class Row {
+        private final int lineNumber;
+        private final LineColor lineColor;
+        private final String stationName;
+        private final Duration timeToStation; //null - первая станция линии
+        private final List<String> changeLineStations;
+
+        private Row(int lineNumber,
+                    LineColor lineColor,
+                    String stationName,
+                    Duration timeToStation,
+                    List<String> changeLineStations) {
+            this.lineNumber = lineNumber;
+            this.lineColor = lineColor;
+            this.stationName = stationName;
+            this.timeToStation = timeToStation;
+            this.changeLineStations = changeLineStations;
+        }
+    }
+}
@@ -1,19 +1,22 @@
 package org.example.metro.underground;
 
 import java.time.Duration;
-import java.util.LinkedHashSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 
+import static org.example.metro.underground.UndergroundValidatorUtil.checkLineIsNotEmpty;
 import static org.example.metro.underground.UndergroundValidatorUtil.checkPreviousStationIsLastInLine;
-import static org.example.metro.underground.util.UndergroundUtil.getLastValueFromLinkedHashSet;
 
 /**
  * Линия метро
  */
 public class MetroLine {
     private final LineColor lineColor;
-    private final LinkedHashSet<Station> stations = new LinkedHashSet<>();
+    private Station[] stations = new Station[8]; //Станции в порядке следования, индекс - {@link Station#getLineIndex()}
+    private int size;
     private final Metro metro;
 
     protected MetroLine(LineColor lineColor, Metro metro) {
@@ -26,7 +29,7 @@ public class MetroLine {
      */
     protected Station createFirstStation(String stationName, Set<Station> changeLineStations) {
         Station station = new Station(stationName, this, metro, changeLineStations);
-        stations.add(station);
+        addStation(station);
         return station;
     }
 
@@ -50,18 +53,46 @@ public class MetroLine {
     protected Station createLastStation(String stationName,
                                         Duration timeToStation,
                                         Set<Station> changeLineStations) {
-        Station prevStation = getLastValueFromLinkedHashSet(stations);
+        checkLineIsNotEmpty(this);
+        return createNextStation(getLastStation(), stationName, timeToStation, changeLineStations);
+    }
+
+    /**
+     * Создание станции после известной последней станции линии
+     */
+    protected Station createNextStation(Station prevStation,
+                                        String stationName,
+                                        Duration timeToStation,
+                                        Set<Station> changeLineStations) {
         checkPreviousStationIsLastInLine(prevStation);
         Station newStation = new Station(stationName, this, metro, changeLineStations);
         prevStation.setTimeToNextStation(timeToStation);
         prevStation.setNextStation(newStation);
         newStation.setPrevStation(prevStation);
-        stations.add(newStation);
+        addStation(newStation);
         return newStation;
     }
 
-    protected LinkedHashSet<Station> getStations() {
-        return stations;
+    /**
+     * Последняя станция линии, null - на линии нет станций
+     */
+    protected Station getLastStation() {
+        return size == 0 ? null : stations[size - 1];
+    }
+
+    /**
+     * Станции в порядке следования
+     */
+    protected List<Station> getStations() {
+        return Collections.unmodifiableList(Arrays.asList(stations).subList(0, size));
+    }
+
+    private void addStation(Station station) {
+        if (size == stations.length) {
+            stations = Arrays.copyOf(stations, size * 2);
+        }
+        station.setLineIndex(size);
+        stations[size++] = station;
     }
 
     protected LineColor getColor() {
@@ -85,7 +116,7 @@ public class MetroLine {
     public String toString() {
         return "Line{" +
                 "color='" + lineColor + '\'' +
-                ", stations=" + stations +
+                ", stations=" + getStations() +
                 '}';
     }
 }
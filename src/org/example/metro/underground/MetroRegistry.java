@@ -0,0 +1,105 @@
+package org.example.metro.underground;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Метрополитены нескольких городов в одном процессе.
+ * Каждый город со своими тарифом и лимитами {@link CityConfig}, имена станций всех городов хранятся в одном
+ * экземпляре на равную строку. Продажи направляются в город и станцию поиском в хэш-таблицах за O(1)
+ */
+public class MetroRegistry {
+    private final ConcurrentHashMap<String, Metro> cities = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> names = new ConcurrentHashMap<>(); //Общие имена станций и городов
+
+    /**
+     * Создание метрополитена города
+     */
+    public Metro createCity(String city, CityConfig config) {
+        Objects.requireNonNull(city);
+        Objects.requireNonNull(config);
+        Metro metro = new Metro(intern(city), config.getSubscriptionLimit(), this::intern);
+        config.applyTo(metro);
+        if (cities.putIfAbsent(metro.getCity(), metro) != null) {
+            throw new RuntimeException("Метрополитен города уже существует: " + city);
+        }
+        return metro;
+    }
+
+    /**
+     * Загрузка метрополитена города из снимка {@link Metro#saveSnapshot(Path)}.
+     * Имена станций попадают в общее хранилище, лимит абонементов берется из снимка, остальные настройки по умолчанию
+     */
+    public Metro loadCity(Path file) {
+        Objects.requireNonNull(file);
+        Metro metro = MetroSnapshot.read(file, this::intern);
+        if (cities.putIfAbsent(metro.getCity(), metro) != null) {
+            throw new RuntimeException("Метрополитен города уже существует: " + metro.getCity());
+        }
+        return metro;
+    }
+
+    /**
+     * Метрополитен города
+     */
+    public Metro getCity(String city) {
+        Metro metro = cities.get(city);
+        if (metro == null) {
+            throw new RuntimeException("Метрополитена города нет: " + city);
+        }
+        return metro;
+    }
+
+    /**
+     * Удаление метрополитена города, имена его станций остаются в общем хранилище
+     */
+    public Metro removeCity(String city) {
+        Metro metro = getCity(city);
+        cities.remove(city, metro);
+        return metro;
+    }
+
+    public Set<String> getCities() {
+        return Collections.unmodifiableSet(cities.keySet());
+    }
+
+    /**
+     * Продажа билета в кассе станции города
+     */
+    public void sellTicket(String city, String stationName, String startStation, String finishStation, LocalDate date) {
+        getCity(city).getStationByName(stationName).saleOneTicket(startStation, finishStation, date);
+    }
+
+    /**
+     * Продажа абонемента в кассе станции города
+     */
+    public Subscription sellSubscription(String city, String stationName, LocalDate date) {
+        return getCity(city).getStationByName(stationName).saleSubscription(date);
+    }
+
+    /**
+     * Проверка абонемента города
+     */
+    public boolean isSubscriptionActive(String city, String subscriptionNumber, LocalDate checkDate) {
+        return getCity(city).isSubscriptionActive(subscriptionNumber, checkDate);
+    }
+
+    /**
+     * Общий экземпляр строки
+     */
+    public String intern(String name) {
+        String shared = names.putIfAbsent(name, name);
+        return shared == null ? name : shared;
+    }
+
+    /**
+     * Количество различных имен в общем хранилище
+     */
+    public int getNameCount() {
+        return names.size();
+    }
+}
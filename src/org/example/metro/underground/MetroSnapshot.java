@@ -0,0 +1,157 @@
+package org.example.metro.underground;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Двоичный снимок метрополитена: лимит абонементов, линии, станции в порядке идентификаторов, время перегонов,
+ * пересадки и абонементы. Загружается одним отображением файла в память без проверок каждой станции
+ */
+public class MetroSnapshot {
+    private static final int MAGIC = 0x4D455452; //METR
+    private static final int VERSION = 3; //2 - дни абонементов со сдвигом, 3 - лимит абонементов и длина строк int
+    private static final int NO_NEXT_STATION = -1;
+
+    private MetroSnapshot() {
+    }
+
+    /**
+     * Запись снимка в файл
+     */
+    protected static void write(Metro metro, Path file) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, metro.getCity());
+            out.writeInt(metro.getSubscriptions().getLimit());
+
+            List<MetroLine> metroLines = metro.getMetroLines();
+            out.writeInt(metroLines.size());
+            for (MetroLine metroLine : metroLines) {
+                out.writeByte(metroLine.getColor().ordinal());
+            }
+
+            List<Station> stations = metro.getStationsById();
+            out.writeInt(stations.size());
+            for (Station station : stations) {
+                out.writeByte(station.getLine().getColor().ordinal());
+                writeString(out, station.getName());
+                out.writeInt(station.getTimeToNextStation() == null
+                        ? NO_NEXT_STATION
+                        : (int) station.getTimeToNextStation().getSeconds());
+            }
+            for (Station station : stations) {
+                Set<Station> changeLineStations = station.getChangeLineStations();
+                if (changeLineStations == null) {
+                    out.writeInt(-1);
+                    continue;
+                }
+                out.writeInt(changeLineStations.size());
+                for (Station changeStation : changeLineStations) {
+                    out.writeInt(changeStation.getId());
+                }
+            }
+
+            SubscriptionStore subscriptions = metro.getSubscriptions();
+            int subscriptionCount = subscriptions.size();
+            out.writeInt(subscriptionCount);
+            for (int id = 1; id <= subscriptionCount; id++) {
+                out.writeLong(subscriptions.getEncoded(id));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Загрузка метрополитена из снимка
+     *
+     * @param nameInterner возвращает общий экземпляр равной строки имени станции
+     */
+    protected static Metro read(Path file, UnaryOperator<String> nameInterner) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw new RuntimeException("Файл не является снимком метрополитена: " + file);
+            }
+            String city = readString(in);
+            Metro metro = new Metro(city, in.getInt(), nameInterner);
+            LineColor[] colors = LineColor.values();
+
+            int lineCount = in.getInt();
+            MetroLine[] metroLines = new MetroLine[colors.length];
+            for (int i = 0; i < lineCount; i++) {
+                LineColor lineColor = colors[in.get()];
+                metroLines[lineColor.ordinal()] = metro.createLine(lineColor);
+            }
+
+            int stationCount = in.getInt();
+            List<Station> stations = new ArrayList<>(stationCount);
+            int[] secondsToNext = new int[stationCount];
+            Station[] lastStations = new Station[colors.length];
+            for (int id = 0; id < stationCount; id++) {
+                int colorIndex = in.get();
+                String name = readString(in);
+                secondsToNext[id] = in.getInt();
+                Station prevStation = lastStations[colorIndex];
+                Duration timeToStation = prevStation == null ? null : Duration.ofSeconds(secondsToNext[prevStation.getId()]);
+                Station station = metro.loadStation(metroLines[colorIndex], prevStation, name, timeToStation);
+                lastStations[colorIndex] = station;
+                stations.add(station);
+            }
+            for (Station station : stations) {
+                int changeCount = in.getInt();
+                if (changeCount < 0) {
+                    continue;
+                }
+                Set<Station> changeLineStations = new HashSet<>();
+                for (int i = 0; i < changeCount; i++) {
+                    changeLineStations.add(stations.get(in.getInt()));
+                }
+                station.setChangeLineStations(changeLineStations);
+            }
+
+            SubscriptionStore subscriptions = metro.getSubscriptions();
+            int subscriptionCount = in.getInt();
+            for (int id = 1; id <= subscriptionCount; id++) {
+                subscriptions.restoreEncoded(id, in.getLong());
+            }
+            return metro;
+        } catch (BufferUnderflowException e) {
+            throw new RuntimeException("Снимок метрополитена поврежден: " + file, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(MappedByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining()) {
+            throw new RuntimeException("Снимок метрополитена поврежден: длина строки " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.metro.underground;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Пассажиропотоки между парами станций отправления и назначения за период.
+ * Хранятся в массивах примитивов по идентификаторам станций {@link Station#getId()}
+ */
+public class OdFlows {
+    private static final int INITIAL_CAPACITY = 1024;
+    private int[] origins = new int[INITIAL_CAPACITY];
+    private int[] destinations = new int[INITIAL_CAPACITY];
+    private long[] passengers = new long[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Добавление пассажиропотока между станциями
+     */
+    public OdFlows add(Station origin, Station destination, long passengerCount) {
+        Objects.requireNonNull(origin);
+        Objects.requireNonNull(destination);
+        return add(origin.getId(), destination.getId(), passengerCount);
+    }
+
+    /**
+     * Добавление пассажиропотока между станциями по идентификаторам
+     */
+    public OdFlows add(int originId, int destinationId, long passengerCount) {
+        if (originId < 0 || destinationId < 0) {
+            throw new RuntimeException("Идентификатор станции не может быть отрицательным");
+        }
+        if (passengerCount < 0) {
+            throw new RuntimeException("Количество пассажиров не может быть отрицательным");
+        }
+        if (size == origins.length) {
+            origins = Arrays.copyOf(origins, size * 2);
+            destinations = Arrays.copyOf(destinations, size * 2);
+            passengers = Arrays.copyOf(passengers, size * 2);
+        }
+        origins[size] = originId;
+        destinations[size] = destinationId;
+        passengers[size] = passengerCount;
+        size++;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    protected int getOrigin(int index) {
+        return origins[index];
+    }
+
+    protected int getDestination(int index) {
+        return destinations[index];
+    }
+
+    protected long getPassengers(int index) {
+        return passengers[index];
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.metro.underground;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Накопитель выручки по станциям, линиям, месяцам и дням недели в копейках для параллельного обхода касс.
+ * Каждый поток заполняет свой накопитель, затем накопители сливаются сложением,
+ * поэтому результат не зависит от порядка обхода и совпадает с последовательным
+ */
+public class RevenueAccumulator implements DailyRevenue.DayConsumer {
+    private static final int DAYS_IN_WEEK = 7;
+    private static final int EPOCH_DAY_OF_WEEK = 3; //1970-01-01 - четверг
+    private final List<Station> stationsById;
+    private final long[] stationKopecks;
+    private final long[] lineKopecks = new long[LineColor.values().length];
+    private final long[] dayOfWeekKopecks = new long[DAYS_IN_WEEK]; //Понедельник - 0
+    private final Map<Integer, long[]> monthKopecks = new HashMap<>(); //Ключ - месяцев от 1970-01
+    private long[] currentMonth; //Ячейка месяца последнего учтенного дня
+    private long monthFirstDay = 1; //Границы месяца последнего учтенного дня, пустой диапазон до первого дня
+    private long monthLastDay;
+    private int stationId;
+    private int lineOrdinal;
+
+    protected RevenueAccumulator(List<Station> stationsById) {
+        this.stationsById = stationsById;
+        this.stationKopecks = new long[stationsById.size()];
+    }
+
+    /**
+     * Учет выручки кассы станции, скопированной за период отчета
+     *
+     * @param sales выручка кассы, null - продаж не было
+     */
+    protected void addStation(int id, SparseDailyRevenue sales) {
+        if (sales == null) {
+            return;
+        }
+        stationId = id;
+        lineOrdinal = stationsById.get(id).getLine().getColor().ordinal();
+        sales.forEachBetween(Long.MIN_VALUE, Long.MAX_VALUE, this);
+    }
+
+    @Override
+    public void accept(long epochDay, long kopecks) {
+        stationKopecks[stationId] += kopecks;
+        lineKopecks[lineOrdinal] += kopecks;
+        dayOfWeekKopecks[(int) Math.floorMod(epochDay + EPOCH_DAY_OF_WEEK, (long) DAYS_IN_WEEK)] += kopecks;
+        if (epochDay < monthFirstDay || epochDay > monthLastDay) {
+            selectMonth(epochDay);
+        }
+        currentMonth[0] += kopecks;
+    }
+
+    /**
+     * Слияние с накопителем другого потока
+     */
+    protected void merge(RevenueAccumulator other) {
+        addAll(stationKopecks, other.stationKopecks);
+        addAll(lineKopecks, other.lineKopecks);
+        addAll(dayOfWeekKopecks, other.dayOfWeekKopecks);
+        other.monthKopecks.forEach((month, kopecks) ->
+                monthKopecks.computeIfAbsent(month, key -> new long[1])[0] += kopecks[0]);
+    }
+
+    protected long getStationKopecks(int id) {
+        return stationKopecks[id];
+    }
+
+    protected long getLineKopecks(LineColor lineColor) {
+        return lineKopecks[lineColor.ordinal()];
+    }
+
+    /**
+     * @param dayOfWeek понедельник - 0
+     */
+    protected long getDayOfWeekKopecks(int dayOfWeek) {
+        return dayOfWeekKopecks[dayOfWeek];
+    }
+
+    /**
+     * Выручка по месяцам с продажами в произвольном порядке
+     */
+    protected void forEachMonth(MonthConsumer consumer) {
+        monthKopecks.forEach((month, kopecks) ->
+                consumer.accept(YearMonth.of(1970 + Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1), kopecks[0]));
+    }
+
+    /**
+     * Получатель выручки за месяц
+     */
+    protected interface MonthConsumer {
+        void accept(YearMonth month, long kopecks);
+    }
+
+    private void selectMonth(long epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        LocalDate firstDay = date.withDayOfMonth(1);
+        monthFirstDay = firstDay.toEpochDay();
+        monthLastDay = firstDay.plusMonths(1).toEpochDay() - 1;
+        int month = (date.getYear() - 1970) * 12 + date.getMonthValue() - 1;
+        currentMonth = monthKopecks.computeIfAbsent(month, key -> new long[1]);
+    }
+
+    private static void addAll(long[] target, long[] source) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] += source[i];
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.metro.underground;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Журнал выручки метрополитена по линиям и дням в копейках.
+ * Пополняется кассами при каждой продаже, отчеты не обходят кассы.
+ * Кроме выручки линий хранит выручку метрополитена по дням и дни, упорядоченные по убыванию выручки,
+ * которые продажа переставляет на месте, поэтому лучшие дни читаются без пересчета.
+ * Суммы за период читаются без блокировок, списки дней - под монопольной блокировкой продаж {@link Metro}
+ */
+public class RevenueLedger {
+    private static final int DAY_LOCKS = 64; //Степень двойки
+    private static final Comparator<DayIncome> BY_INCOME = Comparator
+            .comparingLong((DayIncome day) -> day.kopecks).reversed()
+            .thenComparingLong(day -> day.epochDay);
+    private final DailyRevenue[] lineRevenues = new DailyRevenue[LineColor.values().length];
+    private final DailyRevenue dayTotals = new DailyRevenue();
+    private final ConcurrentSkipListSet<DayIncome> ranking = new ConcurrentSkipListSet<>(BY_INCOME);
+    private final Object[] dayLocks = new Object[DAY_LOCKS]; //Итог дня и его место в рейтинге меняются вместе
+
+    protected RevenueLedger() {
+        for (int i = 0; i < lineRevenues.length; i++) {
+            lineRevenues[i] = new DailyRevenue();
+        }
+        for (int i = 0; i < dayLocks.length; i++) {
+            dayLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * Добавление выручки линии за день
+     */
+    protected void add(MetroLine metroLine, long epochDay, long kopecks) {
+        lineRevenues[metroLine.getColor().ordinal()].add(epochDay, kopecks);
+        synchronized (dayLocks[(int) epochDay & (DAY_LOCKS - 1)]) {
+            long before = dayTotals.get(epochDay);
+            dayTotals.add(epochDay, kopecks);
+            if (before != 0) {
+                ranking.remove(new DayIncome(epochDay, before));
+            }
+            if (before + kopecks != 0) {
+                ranking.add(new DayIncome(epochDay, before + kopecks));
+            }
+        }
+    }
+
+    /**
+     * Выручка метрополитена за период, обе границы включительно
+     */
+    protected long sumBetween(long fromEpochDay, long toEpochDay) {
+        return dayTotals.sumBetween(fromEpochDay, toEpochDay);
+    }
+
+    /**
+     * Выручка линии за период, обе границы включительно
+     */
+    protected long lineSumBetween(LineColor lineColor, long fromEpochDay, long toEpochDay) {
+        return lineRevenues[lineColor.ordinal()].sumBetween(fromEpochDay, toEpochDay);
+    }
+
+    /**
+     * Не было ни одной продажи
+     */
+    protected boolean isEmpty() {
+        return dayTotals.isEmpty();
+    }
+
+    /**
+     * Выручка метрополитена по дням в порядке возрастания дат, вызывается под монопольной блокировкой продаж
+     */
+    protected Map<LocalDate, Long> getDailyIncomes() {
+        Map<LocalDate, Long> incomes = new LinkedHashMap<>();
+        dayTotals.forEach(incomes::put);
+        return incomes;
+    }
+
+    /**
+     * Дни с наибольшей выручкой по убыванию выручки, при равной выручке - по возрастанию дат.
+     * Читает первые count дней рейтинга, вызывается под монопольной блокировкой продаж
+     */
+    protected List<Map.Entry<LocalDate, Long>> getTopDays(int count) {
+        List<Map.Entry<LocalDate, Long>> days = new ArrayList<>();
+        Iterator<DayIncome> iterator = ranking.iterator();
+        while (days.size() < count && iterator.hasNext()) {
+            DayIncome day = iterator.next();
+            days.add(Map.entry(LocalDate.ofEpochDay(day.epochDay), day.kopecks));
+        }
+        return days;
+    }
+
+    /**
+     * Выручка метрополитена за день в рейтинге
+     */
+    private static class DayIncome {
+        private final long epochDay;
+        private final long kopecks;
+
+        private DayIncome(long epochDay, long kopecks) {
+            this.epochDay = epochDay;
+            this.kopecks = kopecks;
+        }
+    }
+}
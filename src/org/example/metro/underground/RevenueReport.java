@@ -0,0 +1,99 @@
+package org.example.metro.underground;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import static org.example.metro.underground.util.UndergroundUtil.kopecksToRoubles;
+
+/**
+ * Отчет о выручке метрополитена за период в рублях: всего, по линиям, станциям, месяцам и дням недели
+ */
+public class RevenueReport {
+    private final BigDecimal total;
+    private final Map<LineColor, BigDecimal> byLine;
+    private final Map<String, BigDecimal> byStation;
+    private final Map<YearMonth, BigDecimal> byMonth; //По возрастанию месяцев, только месяцы с продажами
+    private final Map<DayOfWeek, BigDecimal> byDayOfWeek;
+
+    protected RevenueReport(RevenueAccumulator accumulator, Iterable<LineColor> lineColors, Iterable<Station> stations) {
+        Map<LineColor, BigDecimal> lines = new EnumMap<>(LineColor.class);
+        long totalKopecks = 0;
+        for (LineColor lineColor : lineColors) {
+            long kopecks = accumulator.getLineKopecks(lineColor);
+            lines.put(lineColor, kopecksToRoubles(kopecks));
+            totalKopecks += kopecks;
+        }
+        Map<String, BigDecimal> stationIncomes = new TreeMap<>();
+        for (Station station : stations) {
+            stationIncomes.put(station.getName(), kopecksToRoubles(accumulator.getStationKopecks(station.getId())));
+        }
+        Map<YearMonth, BigDecimal> months = new TreeMap<>();
+        accumulator.forEachMonth((month, kopecks) -> months.put(month, kopecksToRoubles(kopecks)));
+        Map<DayOfWeek, BigDecimal> days = new EnumMap<>(DayOfWeek.class);
+        for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+            days.put(dayOfWeek, kopecksToRoubles(accumulator.getDayOfWeekKopecks(dayOfWeek.ordinal())));
+        }
+        this.total = kopecksToRoubles(totalKopecks);
+        this.byLine = Collections.unmodifiableMap(lines);
+        this.byStation = Collections.unmodifiableMap(stationIncomes);
+        this.byMonth = Collections.unmodifiableMap(months);
+        this.byDayOfWeek = Collections.unmodifiableMap(days);
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public Map<LineColor, BigDecimal> getByLine() {
+        return byLine;
+    }
+
+    /**
+     * Выручка по именам станций в алфавитном порядке
+     */
+    public Map<String, BigDecimal> getByStation() {
+        return byStation;
+    }
+
+    public Map<YearMonth, BigDecimal> getByMonth() {
+        return byMonth;
+    }
+
+    public Map<DayOfWeek, BigDecimal> getByDayOfWeek() {
+        return byDayOfWeek;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RevenueReport that = (RevenueReport) o;
+        return total.equals(that.total)
+                && byLine.equals(that.byLine)
+                && byStation.equals(that.byStation)
+                && byMonth.equals(that.byMonth)
+                && byDayOfWeek.equals(that.byDayOfWeek);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(total, byLine, byStation, byMonth, byDayOfWeek);
+    }
+
+    @Override
+    public String toString() {
+        return "RevenueReport{" +
+                "total=" + total +
+                ", byLine=" + byLine +
+                ", byMonth=" + byMonth +
+                ", byDayOfWeek=" + byDayOfWeek +
+                ", stations=" + byStation.size() +
+                '}';
+    }
+}
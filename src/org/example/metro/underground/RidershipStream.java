@@ -0,0 +1,326 @@
+package org.example.metro.underground;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Поток событий входа и выхода пассажиров со счетчиками по станциям и линиям в окнах времени.
+ * События записываются одним потоком-производителем в кольцевой буфер без блокировок,
+ * обработчики читают буфер пакетами, каждый обработчик учитывает свою часть станций.
+ * Время делится на корзины фиксированной ширины, хранится bucketCount последних корзин,
+ * поэтому память не зависит от количества событий, а запрос за окно - разность накопленных счетчиков.
+ * Время потока - наибольшее время события, обработанного всеми обработчиками, поэтому окно запроса
+ * не заканчивается корзиной, события которой еще в буфере. События старше хранимых корзин отбрасываются
+ */
+public class RidershipStream implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+    private static final int SPINS_BEFORE_PARK = 100;
+    private static final long PARK_NANOS = 50_000; //Первая пауза ожидания, удваивается до MAX_PARK_NANOS
+    private static final long MAX_PARK_NANOS = 10_000_000;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private final List<Station> stationsById;
+    private final FrozenNetwork network;
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final long[] timestamps = new long[BUFFER_SIZE]; //Время события в миллисекундах от 1970-01-01
+    private final int[] events = new int[BUFFER_SIZE]; //Идентификатор станции * 2 + тип события
+    private final AtomicLong published = new AtomicLong(-1); //Последнее опубликованное событие
+    private long nextEvent; //Пишет только производитель
+    private long cachedGate = -1; //Наименьшее обработанное событие при последней проверке, читает только производитель
+    private final Consumer[] consumers;
+    private final LongAdder droppedEvents = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Обработчик части станций: станции с идентификатором по модулю количества обработчиков.
+     * Счетчик хранит только свои станции, номер станции в нем - идентификатор, деленный на количество обработчиков
+     */
+    private class Consumer implements Runnable {
+        private final int index;
+        private final AtomicLong processed = new AtomicLong(-1); //Последнее обработанное событие
+        private volatile long latestTimestamp = NO_TIME; //Наибольшее время обработанных событий всех станций
+        private final WindowCounter stationCounter; //Ключ - номер станции в обработчике * 2 + тип события
+        private final WindowCounter lineCounter; //Ключ - номер цвета линии * 2 + тип события
+        private final Thread thread;
+
+        private Consumer(int index) {
+            this.index = index;
+            int ownStations = (stationsById.size() - index + consumers.length - 1) / consumers.length;
+            this.stationCounter = new WindowCounter(ownStations * 2, bucketCount);
+            this.lineCounter = new WindowCounter(LineColor.values().length * 2, bucketCount);
+            this.thread = new Thread(this, "ridership-consumer-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long next = 0;
+            long latest = NO_TIME;
+            int idleSpins = 0;
+            while (true) {
+                long available = published.get();
+                if (available < next) {
+                    if (closed) {
+                        return;
+                    }
+                    idleSpins = waitForEvents(idleSpins);
+                    continue;
+                }
+                idleSpins = 0;
+                for (long sequence = next; sequence <= available; sequence++) {
+                    int slot = (int) sequence & BUFFER_MASK;
+                    int event = events[slot];
+                    int stationId = event >>> 1;
+                    latest = Math.max(latest, timestamps[slot]);
+                    if (stationId % consumers.length == index) {
+                        consume(stationId, event & 1, Math.floorDiv(timestamps[slot], bucketMillis));
+                    }
+                }
+                latestTimestamp = latest;
+                processed.lazySet(available);
+                next = available + 1;
+            }
+        }
+
+        private void consume(int stationId, int type, long bucket) {
+            if (stationCounter.add(stationKey(stationId, type), bucket)) {
+                lineCounter.add(stationsById.get(stationId).getLine().getColor().ordinal() * 2 + type, bucket);
+            } else {
+                droppedEvents.increment();
+            }
+        }
+    }
+
+    /**
+     * @param bucketWidth   ширина корзины времени, наименьшее окно запроса
+     * @param bucketCount   количество хранимых корзин, окна запросов - до bucketCount - 1 корзин
+     * @param consumerCount количество потоков-обработчиков
+     */
+    protected RidershipStream(FrozenNetwork network, Duration bucketWidth, int bucketCount, int consumerCount) {
+        Objects.requireNonNull(bucketWidth);
+        if (bucketWidth.toMillis() <= 0) {
+            throw new RuntimeException("Ширина корзины должна быть не меньше миллисекунды");
+        }
+        if (bucketCount < 2) {
+            throw new RuntimeException("Корзин должно быть не меньше двух");
+        }
+        if (consumerCount <= 0) {
+            throw new RuntimeException("Обработчиков должно быть больше 0");
+        }
+        this.network = network;
+        this.stationsById = network.getStations();
+        this.bucketMillis = bucketWidth.toMillis();
+        this.bucketCount = bucketCount;
+        this.consumers = new Consumer[consumerCount];
+        for (int i = 0; i < consumerCount; i++) {
+            consumers[i] = new Consumer(i);
+        }
+        for (Consumer consumer : consumers) {
+            consumer.thread.start();
+        }
+    }
+
+    /**
+     * Публикация события по имени станции, вызывается только из одного потока
+     */
+    public void publish(String stationName, TripEventType type, long timestampMillis) {
+        Station station = network.findStation(stationName);
+        if (station == null) {
+            throw new RuntimeException("Станции с таким именем нет: " + stationName);
+        }
+        publish(station.getId(), type, timestampMillis);
+    }
+
+    /**
+     * Публикация события по идентификатору станции {@link Station#getId()}, вызывается только из одного потока.
+     * При заполненном буфере ждет обработчиков
+     */
+    public void publish(int stationId, TripEventType type, long timestampMillis) {
+        if (stationId < 0 || stationId >= stationsById.size()) {
+            throw new RuntimeException("Станции с таким идентификатором нет: " + stationId);
+        }
+        if (closed) {
+            throw new RuntimeException("Поток событий закрыт");
+        }
+        long sequence = nextEvent;
+        if (sequence - BUFFER_SIZE > cachedGate) {
+            awaitConsumers(sequence - BUFFER_SIZE);
+        }
+        int slot = (int) sequence & BUFFER_MASK;
+        timestamps[slot] = timestampMillis;
+        events[slot] = stationId * 2 + type.ordinal();
+        nextEvent = sequence + 1;
+        published.lazySet(sequence);
+    }
+
+    /**
+     * Ожидание обработки всех опубликованных событий
+     */
+    public void awaitProcessed() {
+        long target = published.get();
+        int idleSpins = 0;
+        while (minProcessed() < target) {
+            idleSpins = waitForEvents(idleSpins);
+        }
+    }
+
+    /**
+     * Количество событий станции за последнее окно, заканчивающееся временем потока
+     *
+     * @param window длина окна, округляется вверх до целого числа корзин
+     */
+    public long countStation(String stationName, TripEventType type, Duration window) {
+        Station station = network.findStation(stationName);
+        if (station == null) {
+            throw new RuntimeException("Станции с таким именем нет: " + stationName);
+        }
+        long toBucket = latestBucket();
+        long fromBucket = toBucket - windowBuckets(window) + 1;
+        return consumerOf(station.getId()).stationCounter.countBetween(stationKey(station.getId(), type.ordinal()),
+                fromBucket, toBucket);
+    }
+
+    /**
+     * Количество событий на станциях линии за последнее окно, заканчивающееся временем потока
+     *
+     * @param window длина окна, округляется вверх до целого числа корзин
+     */
+    public long countLine(LineColor lineColor, TripEventType type, Duration window) {
+        long toBucket = latestBucket();
+        return countLineBetween(lineColor, type, toBucket - windowBuckets(window) + 1, toBucket);
+    }
+
+    /**
+     * Количество событий станции в корзине, содержащей указанный момент
+     */
+    public long countStationInBucket(String stationName, TripEventType type, Instant moment) {
+        Station station = network.findStation(stationName);
+        if (station == null) {
+            throw new RuntimeException("Станции с таким именем нет: " + stationName);
+        }
+        long bucket = checkedBucket(moment);
+        return consumerOf(station.getId()).stationCounter.countBetween(stationKey(station.getId(), type.ordinal()),
+                bucket, bucket);
+    }
+
+    /**
+     * Количество событий на станциях линии в корзине, содержащей указанный момент
+     */
+    public long countLineInBucket(LineColor lineColor, TripEventType type, Instant moment) {
+        long bucket = checkedBucket(moment);
+        return countLineBetween(lineColor, type, bucket, bucket);
+    }
+
+    /**
+     * Количество событий, отброшенных из-за времени старше хранимых корзин
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    /**
+     * Остановка обработчиков после обработки опубликованных событий, счетчики остаются доступны
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Consumer consumer : consumers) {
+            LockSupport.unpark(consumer.thread);
+        }
+        for (Consumer consumer : consumers) {
+            try {
+                consumer.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private long countLineBetween(LineColor lineColor, TripEventType type, long fromBucket, long toBucket) {
+        int key = lineColor.ordinal() * 2 + type.ordinal();
+        long count = 0;
+        for (Consumer consumer : consumers) {
+            count += consumer.lineCounter.countBetween(key, fromBucket, toBucket);
+        }
+        return count;
+    }
+
+    private Consumer consumerOf(int stationId) {
+        return consumers[stationId % consumers.length];
+    }
+
+    /**
+     * Ключ счетчика станции в ее обработчике
+     */
+    private int stationKey(int stationId, int type) {
+        return stationId / consumers.length * 2 + type;
+    }
+
+    /**
+     * Корзина времени потока: события до нее включительно учтены всеми обработчиками
+     */
+    private long latestBucket() {
+        long latest = Long.MAX_VALUE;
+        for (Consumer consumer : consumers) {
+            latest = Math.min(latest, consumer.latestTimestamp);
+        }
+        return latest == NO_TIME ? 0 : Math.floorDiv(latest, bucketMillis);
+    }
+
+    private long windowBuckets(Duration window) {
+        long buckets = (window.toMillis() + bucketMillis - 1) / bucketMillis;
+        if (buckets <= 0 || buckets >= bucketCount) {
+            throw new RuntimeException("Окно должно быть от 1 до " + (bucketCount - 1) + " корзин");
+        }
+        return buckets;
+    }
+
+    private long checkedBucket(Instant moment) {
+        long bucket = Math.floorDiv(moment.toEpochMilli(), bucketMillis);
+        long latest = latestBucket();
+        if (bucket > latest || bucket <= latest - bucketCount + 1) {
+            throw new RuntimeException("Корзина вне хранимого диапазона: " + moment);
+        }
+        return bucket;
+    }
+
+    private void awaitConsumers(long sequence) {
+        int idleSpins = 0;
+        long gate = minProcessed();
+        while (gate < sequence) {
+            idleSpins = waitForEvents(idleSpins);
+            gate = minProcessed();
+        }
+        cachedGate = gate;
+    }
+
+    private long minProcessed() {
+        long min = Long.MAX_VALUE;
+        for (Consumer consumer : consumers) {
+            min = Math.min(min, consumer.processed.get());
+        }
+        return min;
+    }
+
+    /**
+     * Ожидание без событий: сначала короткие спины, затем паузы, удваивающиеся до MAX_PARK_NANOS,
+     * поэтому простаивающий обработчик просыпается около сотни раз в секунду
+     */
+    private static int waitForEvents(int idleSpins) {
+        if (idleSpins < SPINS_BEFORE_PARK) {
+            Thread.onSpinWait();
+        } else {
+            int doublings = Math.min(idleSpins - SPINS_BEFORE_PARK, Long.numberOfLeadingZeros(PARK_NANOS) - 1);
+            LockSupport.parkNanos(Math.min(PARK_NANOS << doublings, MAX_PARK_NANOS));
+        }
+        return idleSpins == Integer.MAX_VALUE ? idleSpins : idleSpins + 1;
+    }
+}
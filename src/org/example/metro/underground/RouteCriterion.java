@@ -0,0 +1,15 @@
+package org.example.metro.underground;
+
+/**
+ * Критерий выбора маршрута
+ */
+public enum RouteCriterion {
+    /**
+     * Наименьшее количество перегонов, при равенстве - наименьшее время
+     */
+    STAGES,
+    /**
+     * Наименьшее время в пути с учетом времени пересадок
+     */
+    TIME
+}
@@ -0,0 +1,317 @@
+package org.example.metro.underground;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Поиск кратчайших маршрутов с любым количеством пересадок.
+ * Граф станций хранится в массивах смежности, индексы - идентификаторы станций {@link Station#getId()}.
+ * Результаты поиска хранятся в буферах текущего потока до следующего поиска
+ */
+public class RouteEngine {
+    protected static final int ALL_STATIONS = -1;
+    protected static final int NO_ROUTE = -1;
+    private static final long STAGE_WEIGHT = 1L << 32;
+    private final Station[] stations;
+    private final int[] edgeStarts;
+    private final int[] edgeTargets;
+    private final int[] edgeSeconds; //Время перегона, для пересадки - 0
+    private final boolean[] edgeTransfers;
+    private final long transferPenaltySeconds;
+    private final ThreadLocal<Scratch> scratches;
+
+    protected RouteEngine(List<Station> stationsById, Duration transferPenalty) {
+        int size = stationsById.size();
+        this.stations = stationsById.toArray(new Station[0]);
+        this.transferPenaltySeconds = transferPenalty.getSeconds();
+        List<Set<Integer>> transfers = collectTransfers(size);
+        edgeStarts = new int[size + 1];
+        for (int id = 0; id < size; id++) {
+            Station station = stations[id];
+            int degree = transfers.get(id).size();
+            if (station.getNextStation() != null) {
+                degree++;
+            }
+            if (station.getPrevStation() != null) {
+                degree++;
+            }
+            edgeStarts[id + 1] = edgeStarts[id] + degree;
+        }
+        int edgeCount = edgeStarts[size];
+        edgeTargets = new int[edgeCount];
+        edgeSeconds = new int[edgeCount];
+        edgeTransfers = new boolean[edgeCount];
+        for (int id = 0; id < size; id++) {
+            Station station = stations[id];
+            int edge = edgeStarts[id];
+            if (station.getNextStation() != null) {
+                edgeTargets[edge] = station.getNextStation().getId();
+                edgeSeconds[edge++] = (int) station.getTimeToNextStation().getSeconds();
+            }
+            if (station.getPrevStation() != null) {
+                edgeTargets[edge] = station.getPrevStation().getId();
+                edgeSeconds[edge++] = (int) station.getPrevStation().getTimeToNextStation().getSeconds();
+            }
+            for (int target : transfers.get(id)) {
+                edgeTargets[edge] = target;
+                edgeTransfers[edge++] = true;
+            }
+        }
+        scratches = ThreadLocal.withInitial(() -> new Scratch(size, edgeCount));
+    }
+
+    /**
+     * Поиск маршрутов от станции до указанной станции или до всех станций {@link #ALL_STATIONS}
+     *
+     * @return true, если указанная станция достижима
+     */
+    protected boolean search(int fromId, int toId, RouteCriterion criterion) {
+        Scratch scratch = scratches.get();
+        scratch.reset();
+        scratch.visit(fromId, 0, 0, 0, 0, NO_ROUTE);
+        scratch.push(0, fromId);
+        while (scratch.heapSize > 0) {
+            long cost = scratch.heapKeys[0];
+            int id = scratch.pop();
+            if (cost > scratch.costs[id] || scratch.settled[id] == scratch.generation) {
+                continue;
+            }
+            scratch.settled[id] = scratch.generation;
+            scratch.order[scratch.orderSize++] = id;
+            if (id == toId) {
+                return true;
+            }
+            for (int edge = edgeStarts[id]; edge < edgeStarts[id + 1]; edge++) {
+                int target = edgeTargets[edge];
+                long edgeCost = edgeCost(edge, criterion);
+                long targetCost = cost + edgeCost;
+                if (!scratch.isVisited(target) || targetCost < scratch.costs[target]) {
+                    int targetStages = scratch.stages[id] + (edgeTransfers[edge] ? 0 : 1);
+                    long targetSeconds = scratch.seconds[id] + edgeSeconds[edge];
+                    int targetTransfers = scratch.transfers[id] + (edgeTransfers[edge] ? 1 : 0);
+                    scratch.visit(target, targetCost, targetStages, targetSeconds, targetTransfers, id);
+                    scratch.push(targetCost, target);
+                }
+            }
+        }
+        return toId == ALL_STATIONS;
+    }
+
+    /**
+     * Количество перегонов до станции по результатам последнего поиска
+     */
+    protected int getStages(int toId) {
+        Scratch scratch = scratches.get();
+        return scratch.isVisited(toId) ? scratch.stages[toId] : NO_ROUTE;
+    }
+
+    /**
+     * Количество пересадок до станции по результатам последнего поиска
+     */
+    protected int getTransfers(int toId) {
+        Scratch scratch = scratches.get();
+        return scratch.isVisited(toId) ? scratch.transfers[toId] : NO_ROUTE;
+    }
+
+    /**
+     * Время в пути до станции без учета пересадок по результатам последнего поиска
+     */
+    protected long getSeconds(int toId) {
+        Scratch scratch = scratches.get();
+        return scratch.isVisited(toId) ? scratch.seconds[toId] : NO_ROUTE;
+    }
+
+    /**
+     * Станции маршрута до указанной станции по результатам последнего поиска
+     */
+    protected List<Station> getPath(int toId) {
+        Scratch scratch = scratches.get();
+        if (!scratch.isVisited(toId)) {
+            return Collections.emptyList();
+        }
+        List<Station> path = new ArrayList<>();
+        for (int id = toId; id != NO_ROUTE; id = scratch.previous[id]) {
+            path.add(stations[id]);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Поиск наименьшего времени в пути с учетом пересадок от станции до всех станций
+     */
+    protected TravelTimes searchTravelTimes(int fromId) {
+        search(fromId, ALL_STATIONS, RouteCriterion.TIME);
+        Scratch scratch = scratches.get();
+        int[] secondsById = new int[stations.length];
+        Arrays.fill(secondsById, TravelTimes.NO_ROUTE);
+        int[] stationIdsByTime = Arrays.copyOf(scratch.order, scratch.orderSize);
+        int[] sortedSeconds = new int[scratch.orderSize];
+        for (int rank = 0; rank < scratch.orderSize; rank++) {
+            int id = stationIdsByTime[rank];
+            sortedSeconds[rank] = (int) scratch.costs[id];
+            secondsById[id] = sortedSeconds[rank];
+        }
+        return new TravelTimes(secondsById, stationIdsByTime, sortedSeconds);
+    }
+
+    /**
+     * Распределение пассажиров по перегонам дерева маршрутов последнего поиска до всех станций.
+     * Станции обходятся от дальних к ближним, пассажиры станции переносятся на предыдущую станцию маршрута,
+     * поэтому каждый перегон дерева учитывается один раз, а не для каждой станции назначения
+     *
+     * @param demands пассажиры по станциям назначения, для достижимых станций обнуляются
+     * @param loads   нагрузка перегонов: 2 * id - от предыдущей станции линии к станции id, 2 * id + 1 - обратно
+     */
+    protected void assignLoads(long[] demands, long[] loads) {
+        Scratch scratch = scratches.get();
+        for (int i = scratch.orderSize - 1; i > 0; i--) {
+            int id = scratch.order[i];
+            long demand = demands[id];
+            if (demand == 0) {
+                continue;
+            }
+            int previousId = scratch.previous[id];
+            if (stations[previousId].getNextStation() == stations[id]) {
+                loads[2 * id] += demand;
+            } else if (stations[id].getNextStation() == stations[previousId]) {
+                loads[2 * previousId + 1] += demand;
+            }
+            demands[previousId] += demand;
+            demands[id] = 0;
+        }
+        if (scratch.orderSize > 0) {
+            demands[scratch.order[0]] = 0;
+        }
+    }
+
+    private long edgeCost(int edge, RouteCriterion criterion) {
+        if (criterion == RouteCriterion.STAGES) {
+            return edgeTransfers[edge] ? transferPenaltySeconds : STAGE_WEIGHT + edgeSeconds[edge];
+        }
+        return edgeTransfers[edge] ? transferPenaltySeconds : edgeSeconds[edge];
+    }
+
+    /**
+     * Сбор пересадок в обе стороны без повторов
+     */
+    private List<Set<Integer>> collectTransfers(int size) {
+        List<Set<Integer>> transfers = new ArrayList<>(size);
+        for (int id = 0; id < size; id++) {
+            transfers.add(new HashSet<>());
+        }
+        for (Station station : stations) {
+            if (station.getChangeLineStations() == null) {
+                continue;
+            }
+            for (Station changeStation : station.getChangeLineStations()) {
+                if (changeStation != station) {
+                    transfers.get(station.getId()).add(changeStation.getId());
+                    transfers.get(changeStation.getId()).add(station.getId());
+                }
+            }
+        }
+        return transfers;
+    }
+
+    /**
+     * Буферы поиска одного потока, переиспользуются между поисками
+     */
+    private static class Scratch {
+        private final long[] costs;
+        private final int[] stages;
+        private final long[] seconds;
+        private final int[] transfers;
+        private final int[] previous;
+        private final int[] visited;
+        private final int[] settled;
+        private final int[] order; //Станции в порядке завершения поиска
+        private int orderSize;
+        private final long[] heapKeys;
+        private final int[] heapValues;
+        private int heapSize;
+        private int generation;
+
+        private Scratch(int size, int edgeCount) {
+            costs = new long[size];
+            stages = new int[size];
+            seconds = new long[size];
+            transfers = new int[size];
+            previous = new int[size];
+            visited = new int[size];
+            settled = new int[size];
+            order = new int[size];
+            heapKeys = new long[edgeCount + 1];
+            heapValues = new int[edgeCount + 1];
+        }
+
+        private void reset() {
+            heapSize = 0;
+            orderSize = 0;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(visited, 0);
+                Arrays.fill(settled, 0);
+                generation = 0;
+            }
+            generation++;
+        }
+
+        private boolean isVisited(int id) {
+            return id >= 0 && id < visited.length && visited[id] == generation;
+        }
+
+        private void visit(int id, long cost, int stageCount, long secondCount, int transferCount, int previousId) {
+            visited[id] = generation;
+            costs[id] = cost;
+            stages[id] = stageCount;
+            seconds[id] = secondCount;
+            transfers[id] = transferCount;
+            previous[id] = previousId;
+        }
+
+        private void push(long key, int value) {
+            int index = heapSize++;
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (heapKeys[parent] <= key) {
+                    break;
+                }
+                heapKeys[index] = heapKeys[parent];
+                heapValues[index] = heapValues[parent];
+                index = parent;
+            }
+            heapKeys[index] = key;
+            heapValues[index] = value;
+        }
+
+        private int pop() {
+            int result = heapValues[0];
+            long key = heapKeys[--heapSize];
+            int value = heapValues[heapSize];
+            int index = 0;
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                    child++;
+                }
+                if (key <= heapKeys[child]) {
+                    break;
+                }
+                heapKeys[index] = heapKeys[child];
+                heapValues[index] = heapValues[child];
+                index = child;
+            }
+            heapKeys[index] = key;
+            heapValues[index] = value;
+            return result;
+        }
+    }
+}
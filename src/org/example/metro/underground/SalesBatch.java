@@ -0,0 +1,53 @@
+package org.example.metro.underground;
+
+import java.util.Arrays;
+
+/**
+ * Выручка пакета продаж по дням в копейках.
+ * Накапливается локально и записывается в кассу за один шаг
+ */
+public class SalesBatch {
+    private long[] epochDays = new long[4];
+    private long[] amounts = new long[4];
+    private int dayCount;
+    private int lastIndex = -1;
+
+    /**
+     * Добавление суммы к выручке пакета за день
+     */
+    protected void add(long epochDay, long kopecks) {
+        if (lastIndex < 0 || epochDays[lastIndex] != epochDay) {
+            lastIndex = indexOfDay(epochDay);
+        }
+        amounts[lastIndex] += kopecks;
+    }
+
+    protected int getDayCount() {
+        return dayCount;
+    }
+
+    protected long getEpochDay(int index) {
+        return epochDays[index];
+    }
+
+    protected long getAmount(int index) {
+        return amounts[index];
+    }
+
+    /**
+     * Поиск дня в пакете, новый день добавляется в конец
+     */
+    private int indexOfDay(long epochDay) {
+        for (int i = 0; i < dayCount; i++) {
+            if (epochDays[i] == epochDay) {
+                return i;
+            }
+        }
+        if (dayCount == epochDays.length) {
+            epochDays = Arrays.copyOf(epochDays, dayCount * 2);
+            amounts = Arrays.copyOf(amounts, dayCount * 2);
+        }
+        epochDays[dayCount] = epochDay;
+        return dayCount++;
+    }
+}
@@ -0,0 +1,279 @@
+package org.example.metro.underground;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Журнал продаж и абонементов в отображаемых в память файлах фиксированного размера.
+ * Записи фиксированной длины только добавляются и заканчиваются контрольной суммой с номером записи,
+ * восстановление останавливается на первой записи с неверной суммой.
+ * Записи не пересекают границу страницы 4 КиБ. Сброс на диск выполняется пакетно,
+ * {@link #awaitDurable(long)} ждет сброса записей одним сбросом для всех ожидающих
+ */
+public class SalesJournal implements Closeable {
+    private static final int RECORD_SIZE = 32;
+    private static final int RECORDS_PER_SEGMENT = 1 << 21;
+    private static final long SEGMENT_SIZE = (long) RECORD_SIZE * RECORDS_PER_SEGMENT;
+    private static final String SEGMENT_NAME_PATTERN = "sales-%06d.journal";
+    private static final byte SALE = 1; //Выручка кассы за день
+    private static final byte SUBSCRIPTION = 2; //Дата начала абонемента
+    private static final int TYPE_OFFSET = 0;
+    private static final int ID_OFFSET = 4;
+    private static final int EPOCH_DAY_OFFSET = 8;
+    private static final int AMOUNT_OFFSET = 16;
+    private static final int CHECKSUM_OFFSET = 24;
+    private static final long CHECKSUM_SEED = 0x6d65_7472_6f4a_726eL;
+    private final Path directory;
+    private final AtomicLong nextRecord = new AtomicLong(); //Следующая свободная запись
+    private final AtomicLong written = new AtomicLong(); //Записи до этой полностью записаны в память
+    private volatile long durable; //Записи до этой сброшены на диск, меняется при удержании монитора
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * Обработчик записей журнала при восстановлении
+     */
+    protected interface Replayer {
+        void onSale(int stationId, long epochDay, long kopecks);
+
+        void onSubscription(int subscriptionId, long epochDay);
+    }
+
+    private SalesJournal(Path directory, Duration forceInterval) {
+        this.directory = directory;
+        if (forceInterval.isZero()) {
+            flusher = null;
+        } else {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "sales-journal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMillis = Math.max(1, forceInterval.toMillis());
+            flusher.scheduleWithFixedDelay(this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Открытие журнала с восстановлением записанных событий
+     *
+     * @param forceInterval период сброса записей на диск, 0 - только при {@link #flush()},
+     *                      {@link #awaitDurable(long)} и {@link #close()}
+     */
+    protected static SalesJournal open(Path directory, Duration forceInterval, Replayer replayer) {
+        try {
+            Files.createDirectories(directory);
+            SalesJournal journal = new SalesJournal(directory, forceInterval);
+            try {
+                journal.replay(replayer);
+            } catch (IOException | RuntimeException e) {
+                journal.close();
+                throw e;
+            }
+            return journal;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Запись выручки кассы за день
+     *
+     * @return позиция журнала после записи для {@link #awaitDurable(long)}
+     */
+    protected long appendSale(int stationId, long epochDay, long kopecks) {
+        return append(SALE, stationId, epochDay, kopecks);
+    }
+
+    /**
+     * Запись новой даты начала абонемента
+     *
+     * @return позиция журнала после записи для {@link #awaitDurable(long)}
+     */
+    protected long appendSubscription(int subscriptionId, long epochDay) {
+        return append(SUBSCRIPTION, subscriptionId, epochDay, 0);
+    }
+
+    /**
+     * Позиция журнала после всех начатых записей
+     */
+    protected long getPosition() {
+        return nextRecord.get();
+    }
+
+    /**
+     * Ожидание сброса на диск всех записей до позиции.
+     * Записи всех ожидающих потоков сбрасываются одним сбросом первого из них
+     */
+    protected void awaitDurable(long position) {
+        while (durable < position) {
+            flush();
+            if (durable < position) {
+                Thread.onSpinWait(); //Предыдущая запись еще заполняется другим потоком
+            }
+        }
+    }
+
+    /**
+     * Сброс на диск всех записей, полностью записанных до вызова
+     */
+    public synchronized void flush() {
+        long target = written.get();
+        MappedByteBuffer[] current = segments;
+        for (long record = durable; record < target; ) {
+            int index = (int) (record / RECORDS_PER_SEGMENT);
+            long segmentEnd = Math.min(target, (long) (index + 1) * RECORDS_PER_SEGMENT);
+            current[index].force((int) (record % RECORDS_PER_SEGMENT) * RECORD_SIZE,
+                    (int) (segmentEnd - record) * RECORD_SIZE);
+            record = segmentEnd;
+        }
+        if (target > durable) {
+            durable = target;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        flush();
+    }
+
+    /**
+     * Запись события. Записи завершаются по порядку номеров,
+     * поэтому все записи до {@link #written} заполнены и сброс не оставляет пропусков
+     */
+    private long append(byte type, int id, long epochDay, long amount) {
+        long record = nextRecord.getAndIncrement();
+        try {
+            MappedByteBuffer segment = segment((int) (record / RECORDS_PER_SEGMENT));
+            int offset = (int) (record % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+            segment.put(offset + TYPE_OFFSET, type);
+            segment.putInt(offset + ID_OFFSET, id);
+            segment.putLong(offset + EPOCH_DAY_OFFSET, epochDay);
+            segment.putLong(offset + AMOUNT_OFFSET, amount);
+            segment.putLong(offset + CHECKSUM_OFFSET, checksum(record, type, id, epochDay, amount));
+        } finally {
+            while (written.get() != record) {
+                Thread.onSpinWait();
+            }
+            written.set(record + 1);
+        }
+        return record + 1;
+    }
+
+    /**
+     * Последовательное чтение сегментов до первой записи с неверной контрольной суммой.
+     * Записи после нее стираются, следующая запись продолжает журнал с ее места
+     */
+    private void replay(Replayer replayer) throws IOException {
+        long record = 0;
+        boolean valid = true;
+        for (int index = 0; valid && Files.exists(segmentPath(index)); index++) {
+            MappedByteBuffer segment = segment(index);
+            for (int slot = 0; slot < RECORDS_PER_SEGMENT; slot++, record++) {
+                int offset = slot * RECORD_SIZE;
+                byte type = segment.get(offset + TYPE_OFFSET);
+                int id = segment.getInt(offset + ID_OFFSET);
+                long epochDay = segment.getLong(offset + EPOCH_DAY_OFFSET);
+                long amount = segment.getLong(offset + AMOUNT_OFFSET);
+                if ((type != SALE && type != SUBSCRIPTION)
+                        || segment.getLong(offset + CHECKSUM_OFFSET) != checksum(record, type, id, epochDay, amount)) {
+                    valid = false;
+                    break;
+                }
+                if (type == SALE) {
+                    replayer.onSale(id, epochDay, amount);
+                } else {
+                    replayer.onSubscription(id, epochDay);
+                }
+            }
+        }
+        truncate(record);
+        nextRecord.set(record);
+        written.set(record);
+        durable = record;
+    }
+
+    /**
+     * Стирание записей после последней верной, чтобы старые записи не продолжили журнал после новых
+     */
+    private void truncate(long record) throws IOException {
+        int index = (int) (record / RECORDS_PER_SEGMENT);
+        if (Files.exists(segmentPath(index))) {
+            MappedByteBuffer segment = segment(index);
+            for (int slot = (int) (record % RECORDS_PER_SEGMENT); slot < RECORDS_PER_SEGMENT; slot++) {
+                int offset = slot * RECORD_SIZE;
+                if (segment.getLong(offset + CHECKSUM_OFFSET) != 0 || segment.get(offset + TYPE_OFFSET) != 0) {
+                    for (int i = 0; i < RECORD_SIZE; i += Long.BYTES) {
+                        segment.putLong(offset + i, 0);
+                    }
+                }
+            }
+            segment.force();
+        }
+        int next = index + 1;
+        while (Files.deleteIfExists(segmentPath(next))) {
+            next++;
+        }
+    }
+
+    /**
+     * Контрольная сумма записи вместе с ее номером, запись с чужого места или частично сброшенная не совпадает
+     */
+    private static long checksum(long record, byte type, int id, long epochDay, long amount) {
+        long hash = mix(CHECKSUM_SEED ^ record);
+        hash = mix(hash ^ ((long) type << 32 | (id & 0xFFFF_FFFFL)));
+        hash = mix(hash ^ epochDay);
+        return mix(hash ^ amount);
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+
+    private MappedByteBuffer segment(int index) {
+        MappedByteBuffer[] current = segments;
+        if (index < current.length) {
+            return current[index];
+        }
+        return mapSegment(index);
+    }
+
+    private synchronized MappedByteBuffer mapSegment(int index) {
+        MappedByteBuffer[] current = segments;
+        if (index < current.length) {
+            return current[index];
+        }
+        current = Arrays.copyOf(current, index + 1);
+        for (int i = segments.length; i <= index; i++) {
+            try (FileChannel channel = FileChannel.open(segmentPath(i),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                current[i] = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        segments = current;
+        return current[index];
+    }
+
+    private Path segmentPath(int index) {
+        return directory.resolve(String.format(SEGMENT_NAME_PATTERN, index));
+    }
+}
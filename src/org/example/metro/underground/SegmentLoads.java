@@ -0,0 +1,69 @@
+package org.example.metro.underground;
+
+import org.example.metro.exceptions.LineNotExistsException;
+
+import java.util.List;
+
+/**
+ * Количество пассажиров на перегонах линий в каждом направлении
+ */
+public class SegmentLoads {
+    private final FrozenNetwork network;
+    private final long[] loads; //2 * id - от предыдущей станции линии к станции id, 2 * id + 1 - обратно
+    private final long unroutedPassengers;
+
+    protected SegmentLoads(FrozenNetwork network, long[] loads, long unroutedPassengers) {
+        this.network = network;
+        this.loads = loads;
+        this.unroutedPassengers = unroutedPassengers;
+    }
+
+    /**
+     * Пассажиры на перегоне между соседними станциями линии в направлении от первой станции ко второй
+     */
+    public long getLoad(String fromStationName, String toStationName) {
+        Station from = findStation(fromStationName);
+        Station to = findStation(toStationName);
+        if (from.getLine().equals(to.getLine())) {
+            int fromIndex = network.getLineIndex(from.getId());
+            int toIndex = network.getLineIndex(to.getId());
+            if (toIndex == fromIndex + 1) {
+                return loads[2 * to.getId()];
+            }
+            if (fromIndex == toIndex + 1) {
+                return loads[2 * from.getId() + 1];
+            }
+        }
+        throw new RuntimeException("Станции не соседние на линии: " + fromStationName + ", " + toStationName);
+    }
+
+    /**
+     * Наибольшая нагрузка перегона линии в любом направлении
+     */
+    public long getMaxLineLoad(LineColor lineColor) {
+        List<Station> stations = network.getLineStations(lineColor);
+        if (stations == null) {
+            throw new LineNotExistsException(lineColor.getValue());
+        }
+        long max = 0;
+        for (Station station : stations) {
+            max = Math.max(max, Math.max(loads[2 * station.getId()], loads[2 * station.getId() + 1]));
+        }
+        return max;
+    }
+
+    /**
+     * Пассажиры между станциями без маршрута
+     */
+    public long getUnroutedPassengers() {
+        return unroutedPassengers;
+    }
+
+    private Station findStation(String stationName) {
+        Station station = network.findStation(stationName);
+        if (station == null) {
+            throw new RuntimeException("Станции с таким именем нет: " + stationName);
+        }
+        return station;
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.metro.underground;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+import static org.example.metro.underground.util.UndergroundUtil.checkEpochDay;
+
+/**
+ * Выручка по дням в копейках для кассы с редкими продажами.
+ * Дни с продажами хранятся упорядоченным массивом int с параллельным массивом сумм,
+ * поэтому память растет с количеством дней с продажами, а не с длиной периода.
+ * Продажи обычно идут по возрастанию дат, добавление в конец - без сдвига массивов
+ */
+public class SparseDailyRevenue {
+    private static final int INITIAL_CAPACITY = 4;
+    private int[] epochDays = new int[0];
+    private long[] amounts = new long[0];
+    private int size;
+
+    public SparseDailyRevenue() {
+    }
+
+    private SparseDailyRevenue(int[] epochDays, long[] amounts) {
+        this.epochDays = epochDays;
+        this.amounts = amounts;
+        this.size = epochDays.length;
+    }
+
+    /**
+     * Добавление суммы к выручке за день
+     */
+    public synchronized void add(long epochDay, long kopecks) {
+        checkEpochDay(epochDay);
+        int day = (int) epochDay;
+        if (size > 0 && epochDays[size - 1] == day) {
+            amounts[size - 1] += kopecks;
+            return;
+        }
+        int index = size > 0 && epochDays[size - 1] < day ? -size - 1 : Arrays.binarySearch(epochDays, 0, size, day);
+        if (index >= 0) {
+            amounts[index] += kopecks;
+            return;
+        }
+        int position = -index - 1;
+        if (size == epochDays.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, size + (size >> 1));
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+        }
+        System.arraycopy(epochDays, position, epochDays, position + 1, size - position);
+        System.arraycopy(amounts, position, amounts, position + 1, size - position);
+        epochDays[position] = day;
+        amounts[position] = kopecks;
+        size++;
+    }
+
+    /**
+     * Выручка за период, обе границы включительно
+     */
+    public synchronized long sumBetween(long fromEpochDay, long toEpochDay) {
+        long sum = 0;
+        for (int i = firstIndex(fromEpochDay); i < size && epochDays[i] <= toEpochDay; i++) {
+            sum += amounts[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Обход дней с продажами в порядке возрастания дат
+     */
+    public synchronized void forEach(BiConsumer<LocalDate, Long> consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(LocalDate.ofEpochDay(epochDays[i]), amounts[i]);
+        }
+    }
+
+    /**
+     * Обход дней с продажами за период в порядке возрастания дат без выделения памяти, обе границы включительно
+     */
+    public synchronized void forEachBetween(long fromEpochDay, long toEpochDay, DailyRevenue.DayConsumer consumer) {
+        for (int i = firstIndex(fromEpochDay); i < size && epochDays[i] <= toEpochDay; i++) {
+            consumer.accept(epochDays[i], amounts[i]);
+        }
+    }
+
+    /**
+     * Копия дней с продажами за период, обе границы включительно.
+     * Копируются только дни периода, поэтому копия занимает память по количеству дней, а не продаж
+     */
+    public synchronized SparseDailyRevenue copyBetween(long fromEpochDay, long toEpochDay) {
+        int first = firstIndex(fromEpochDay);
+        int end = Math.max(first, endIndex(toEpochDay));
+        return new SparseDailyRevenue(Arrays.copyOfRange(epochDays, first, end), Arrays.copyOfRange(amounts, first, end));
+    }
+
+    /**
+     * Первый индекс дня не раньше указанного
+     */
+    private int firstIndex(long fromEpochDay) {
+        if (size == 0 || fromEpochDay <= epochDays[0]) {
+            return 0;
+        }
+        if (fromEpochDay > epochDays[size - 1]) {
+            return size;
+        }
+        int index = Arrays.binarySearch(epochDays, 0, size, (int) fromEpochDay);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Индекс после последнего дня не позже указанного
+     */
+    private int endIndex(long toEpochDay) {
+        if (size == 0 || toEpochDay < epochDays[0]) {
+            return 0;
+        }
+        if (toEpochDay >= epochDays[size - 1]) {
+            return size;
+        }
+        int index = Arrays.binarySearch(epochDays, 0, size, (int) toEpochDay);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.metro.underground;
+
+import java.util.Arrays;
+
+/**
+ * Матрица количества перегонов и времени в пути между всеми парами станций.
+ * Индексы матрицы - плотные идентификаторы станций {@link Station#getId()}
+ */
+public class StageMatrix {
+    protected static final int NO_ROUTE = -1;
+    private static final int TRANSFERS_SHIFT = 24;
+    private static final int STAGES_MASK = (1 << TRANSFERS_SHIFT) - 1;
+    private static final int MAX_TRANSFERS = 127;
+    private int capacity;
+    private int[] stages; //Младшие 24 бита - перегоны, старшие - пересадки маршрута
+    private int[] seconds;
+    private int size;
+
+    /**
+     * Построение матрицы поиском маршрутов с наименьшим количеством перегонов от каждой станции
+     */
+    protected StageMatrix(int stationCount, RouteEngine routeEngine) {
+        allocate(Math.max(stationCount, 16));
+        size = stationCount;
+        for (int from = 0; from < size; from++) {
+            routeEngine.search(from, RouteEngine.ALL_STATIONS, RouteCriterion.STAGES);
+            for (int to = 0; to < size; to++) {
+                if (to != from) {
+                    stages[from * capacity + to] = packRoute(routeEngine.getStages(to), routeEngine.getTransfers(to));
+                    seconds[from * capacity + to] = (int) routeEngine.getSeconds(to);
+                }
+            }
+        }
+    }
+
+    /**
+     * Копия матрицы для дополнения новыми станциями
+     */
+    protected StageMatrix(StageMatrix source) {
+        capacity = source.capacity;
+        stages = source.stages.clone();
+        seconds = source.seconds.clone();
+        size = source.size;
+    }
+
+    /**
+     * Перегоны и пересадки маршрута в одном int, разбираются {@link #stagesOf(int)} и {@link #transfersOf(int)},
+     * или {@link #NO_ROUTE}
+     */
+    protected int getRoute(int fromId, int toId) {
+        return stages[fromId * capacity + toId];
+    }
+
+    /**
+     * Количество перегонов между станциями или {@link #NO_ROUTE}
+     */
+    protected int getStages(int fromId, int toId) {
+        return stagesOf(getRoute(fromId, toId));
+    }
+
+    /**
+     * Количество пересадок на маршруте с наименьшим количеством перегонов, не больше 127, или {@link #NO_ROUTE}
+     */
+    protected int getTransfers(int fromId, int toId) {
+        return transfersOf(getRoute(fromId, toId));
+    }
+
+    /**
+     * Количество перегонов упакованного маршрута или {@link #NO_ROUTE}
+     */
+    protected static int stagesOf(int route) {
+        return route == NO_ROUTE ? NO_ROUTE : route & STAGES_MASK;
+    }
+
+    /**
+     * Количество пересадок упакованного маршрута или {@link #NO_ROUTE}
+     */
+    protected static int transfersOf(int route) {
+        return route == NO_ROUTE ? NO_ROUTE : route >>> TRANSFERS_SHIFT;
+    }
+
+    /**
+     * Время в пути между станциями в секундах или {@link #NO_ROUTE}
+     */
+    protected int getSeconds(int fromId, int toId) {
+        return seconds[fromId * capacity + toId];
+    }
+
+    /**
+     * Добавление в матрицу станции, созданной в конце линии без пересадок.
+     * Маршруты до новой станции проходят через предыдущую, остальные маршруты не меняются
+     */
+    protected void appendStation(Station station) {
+        int id = station.getId();
+        if (id >= capacity) {
+            grow(Math.max(capacity * 2, id + 1));
+        }
+        size = id + 1;
+        Station prevStation = station.getPrevStation();
+        if (prevStation == null) {
+            return;
+        }
+        int prevId = prevStation.getId();
+        int timeToStation = (int) prevStation.getTimeToNextStation().getSeconds();
+        setPair(id, prevId, 1, timeToStation);
+        for (int other = 0; other < id; other++) {
+            int prevRoute = stages[prevId * capacity + other];
+            if (other != prevId && prevRoute != NO_ROUTE) {
+                setPair(id, other, prevRoute + 1, getSeconds(prevId, other) + timeToStation);
+            }
+        }
+    }
+
+    /**
+     * Упаковка перегонов и пересадок маршрута, пересадок не больше 127
+     */
+    protected static int packRoute(int routeStages, int routeTransfers) {
+        if (routeStages == NO_ROUTE) {
+            return NO_ROUTE;
+        }
+        return routeStages | Math.min(routeTransfers, MAX_TRANSFERS) << TRANSFERS_SHIFT;
+    }
+
+    private void setPair(int firstId, int secondId, int pairStages, int pairSeconds) {
+        stages[firstId * capacity + secondId] = pairStages;
+        stages[secondId * capacity + firstId] = pairStages;
+        seconds[firstId * capacity + secondId] = pairSeconds;
+        seconds[secondId * capacity + firstId] = pairSeconds;
+    }
+
+    private void allocate(int newCapacity) {
+        capacity = newCapacity;
+        stages = new int[newCapacity * newCapacity];
+        seconds = new int[newCapacity * newCapacity];
+        Arrays.fill(stages, NO_ROUTE);
+        Arrays.fill(seconds, NO_ROUTE);
+    }
+
+    private void grow(int newCapacity) {
+        int oldCapacity = capacity;
+        int[] oldStages = stages;
+        int[] oldSeconds = seconds;
+        allocate(newCapacity);
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(oldStages, row * oldCapacity, stages, row * newCapacity, size);
+            System.arraycopy(oldSeconds, row * oldCapacity, seconds, row * newCapacity, size);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.example.metro.underground;
 
 import java.time.Duration;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -15,40 +16,48 @@ public class Station {
     private final String name;
     private final MetroLine metroLine;
     private final Metro metro;
-    private final Cashier cashier;
+    private volatile Cashier cashier; //Создается при первой продаже
     private Station prevStation;
     private Station nextStation;
     private Duration timeToNextStation;
     private Set<Station> changeLineStations;
+    private int id; //Плотный идентификатор станции в метрополитене
+    private int lineIndex; //Порядковый номер станции на линии
 
     protected Station(String name, MetroLine metroLine, Metro metro, Set<Station> changeLineStations) {
         checkNonNullValues(name, metroLine, metro);
-        this.name = name;
+        this.name = metro.internName(name);
         this.changeLineStations = changeLineStations;
         this.metroLine = metroLine;
         this.metro = metro;
-        this.cashier = new Cashier(metro);
     }
 
     /**
      * Продажа билета
      */
     public void saleOneTicket(String stationStart, String stationFinish, LocalDate date) {
-        cashier.sellTicket(stationStart, stationFinish, date);
+        getCashier().sellTicket(stationStart, stationFinish, date);
+    }
+
+    /**
+     * Продажа пакета билетов
+     */
+    public void saleTickets(Collection<TicketSale> ticketSales) {
+        getCashier().sellTickets(ticketSales);
     }
 
     /**
      * Продажа абонемента
      */
     public Subscription saleSubscription(LocalDate date) {
-        return cashier.sellNewSubscription(date);
+        return getCashier().sellNewSubscription(date);
     }
 
     /**
      * Продление абонемента
      */
     public void refreshSubscription(String subscriptionNumber, LocalDate date) {
-        cashier.refreshSubscription(subscriptionNumber, date);
+        getCashier().refreshSubscription(subscriptionNumber, date);
     }
 
     public MetroLine getLine() {
@@ -60,9 +69,29 @@ public class Station {
     }
 
     public void setChangeLineStations(Set<Station> changeLineStations) {
+        metro.changeLineStations(this, changeLineStations);
+    }
+
+    protected void assignChangeLineStations(Set<Station> changeLineStations) {
         this.changeLineStations = changeLineStations;
     }
 
+    public int getId() {
+        return id;
+    }
+
+    protected void setId(int id) {
+        this.id = id;
+    }
+
+    public int getLineIndex() {
+        return lineIndex;
+    }
+
+    protected void setLineIndex(int lineIndex) {
+        this.lineIndex = lineIndex;
+    }
+
     public String getName() {
         return name;
     }
@@ -91,7 +120,27 @@ public class Station {
         this.timeToNextStation = timeToNextStation;
     }
 
+    /**
+     * Касса станции, создается при первом обращении
+     */
     public Cashier getCashier() {
+        Cashier current = cashier;
+        if (current == null) {
+            synchronized (this) {
+                current = cashier;
+                if (current == null) {
+                    current = new Cashier(metro, this);
+                    cashier = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Касса станции, null - на станции не было продаж
+     */
+    protected Cashier findCashier() {
         return cashier;
     }
 
@@ -0,0 +1,49 @@
+package org.example.metro.underground;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Блокировка чтения-записи, разделенная на полосы по потокам.
+ * Общие блокировки разных потоков почти не конкурируют, монопольная блокировка захватывает все полосы
+ */
+public class StripedReadWriteLock {
+    private final ReentrantReadWriteLock[] stripes;
+    private final int mask;
+
+    public StripedReadWriteLock() {
+        int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+        stripes = new ReentrantReadWriteLock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+        mask = count - 1;
+    }
+
+    /**
+     * Захват общей блокировки полосы текущего потока
+     */
+    public Lock lockShared() {
+        Lock lock = stripes[(int) Thread.currentThread().getId() & mask].readLock();
+        lock.lock();
+        return lock;
+    }
+
+    /**
+     * Захват монопольной блокировки всех полос
+     */
+    public void lockExclusive() {
+        for (ReentrantReadWriteLock stripe : stripes) {
+            stripe.writeLock().lock();
+        }
+    }
+
+    /**
+     * Освобождение монопольной блокировки всех полос
+     */
+    public void unlockExclusive() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].writeLock().unlock();
+        }
+    }
+}
@@ -3,34 +3,38 @@ package org.example.metro.underground;
 import java.time.LocalDate;
 
 /**
- * Абонемент в метро
+ * Абонемент в метро. Данные хранятся в {@link SubscriptionStore}, текстовый номер создается при первом обращении
  */
 public class Subscription {
-    private final String number;
-    private LocalDate startDate;
+    private final SubscriptionStore store;
+    private final int id;
+    private String number;
 
-    public Subscription(String number, LocalDate startDate) {
-        this.number = number;
-        this.startDate = startDate;
+    protected Subscription(SubscriptionStore store, int id) {
+        this.store = store;
+        this.id = id;
     }
 
     public String getNumber() {
+        if (number == null) {
+            number = SubscriptionStore.formatNumber(id);
+        }
         return number;
     }
 
     public LocalDate getStartDate() {
-        return startDate;
+        return LocalDate.ofEpochDay(store.getStartEpochDay(id));
     }
 
     public void setStartDate(LocalDate startDate) {
-        this.startDate = startDate;
+        store.setStartDate(id, startDate);
     }
 
     @Override
     public String toString() {
         return "Subscription{" +
-                "number='" + number + '\'' +
-                ", startDate=" + startDate +
+                "number='" + getNumber() + '\'' +
+                ", startDate=" + getStartDate() +
                 '}';
     }
 }
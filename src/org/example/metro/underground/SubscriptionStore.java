@@ -0,0 +1,201 @@
+package org.example.metro.underground;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Хранилище абонементов по числовым номерам.
+ * Дни начала и окончания абонемента от 1970-01-01 со сдвигом {@link #DAY_OFFSET} упакованы в один long
+ * и меняются атомарно, поэтому проверки не блокируются продлениями. Сдвиг допускает даты до 1970 года.
+ * Страницы создаются по мере продаж
+ */
+public class SubscriptionStore {
+    protected static final int NOT_FOUND = -1;
+    protected static final long NO_DAY = Long.MIN_VALUE; //Абонемент не существует, любой день допустим
+    private static final int PAGE_BITS = 16;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final char NUMBER_PREFIX = 'a';
+    private static final int NUMBER_WIDTH = 4;
+    private static final long DAY_OFFSET = 1L << 31; //Упакованный день - беззнаковый int
+    private final int limit;
+    private final AtomicInteger count = new AtomicInteger(); //Количество проданных абонементов
+    private volatile AtomicLongArray[] pages = new AtomicLongArray[0]; //(день начала << 32 | день окончания) со сдвигом
+
+    protected SubscriptionStore(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Добавление абонемента, возвращает его номер
+     */
+    protected int add(LocalDate startDate) {
+        long encodedDays = encode(startDate);
+        int id = count.updateAndGet(current -> {
+            if (current >= limit) {
+                throw new RuntimeException("Исчерпан лимит количества абонементов");
+            }
+            return current + 1;
+        });
+        page(id).set(id & PAGE_MASK, encodedDays);
+        return id;
+    }
+
+    /**
+     * Восстановление абонемента с известным номером
+     */
+    protected void restore(int id, LocalDate startDate) {
+        restoreEncoded(id, encode(startDate));
+    }
+
+    /**
+     * Упакованные дни начала и окончания абонемента, 0 - абонемент не существует
+     */
+    protected long getEncoded(int id) {
+        AtomicLongArray page = findPage(id);
+        return page == null ? 0 : page.get(id & PAGE_MASK);
+    }
+
+    /**
+     * Восстановление абонемента из упакованных дней начала и окончания
+     */
+    protected void restoreEncoded(int id, long encodedDays) {
+        if (id <= 0 || id > limit) {
+            throw new RuntimeException("Номер абонемента вне допустимого диапазона: " + id);
+        }
+        page(id).set(id & PAGE_MASK, encodedDays);
+        count.accumulateAndGet(id, Math::max);
+    }
+
+    /**
+     * Изменение даты начала абонемента
+     *
+     * @return false, если абонемент не существует
+     */
+    protected boolean setStartDate(int id, LocalDate startDate) {
+        long encodedDays = encode(startDate);
+        AtomicLongArray page = findPage(id);
+        if (page == null || page.get(id & PAGE_MASK) == 0) {
+            return false;
+        }
+        page.set(id & PAGE_MASK, encodedDays);
+        return true;
+    }
+
+    /**
+     * Номер дня начала абонемента или {@link #NO_DAY}
+     */
+    protected long getStartEpochDay(int id) {
+        AtomicLongArray page = findPage(id);
+        if (page == null) {
+            return NO_DAY;
+        }
+        long encodedDays = page.get(id & PAGE_MASK);
+        return encodedDays == 0 ? NO_DAY : (encodedDays >>> 32) - DAY_OFFSET;
+    }
+
+    /**
+     * Абонемент существует и действует в указанный день: день начала <= день < день окончания
+     */
+    protected boolean isActive(int id, long epochDay) {
+        AtomicLongArray page = findPage(id);
+        if (page == null) {
+            return false;
+        }
+        long encodedDays = page.get(id & PAGE_MASK);
+        return encodedDays != 0
+                && epochDay >= (encodedDays >>> 32) - DAY_OFFSET
+                && epochDay < (encodedDays & 0xFFFF_FFFFL) - DAY_OFFSET;
+    }
+
+    protected int size() {
+        return count.get();
+    }
+
+    /**
+     * Наибольшее количество проданных абонементов
+     */
+    protected int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Текстовый номер абонемента: a0001, a0002, ..., a10000
+     */
+    protected static String formatNumber(int id) {
+        String digits = Integer.toString(id);
+        StringBuilder number = new StringBuilder(NUMBER_WIDTH + 1).append(NUMBER_PREFIX);
+        for (int i = digits.length(); i < NUMBER_WIDTH; i++) {
+            number.append('0');
+        }
+        return number.append(digits).toString();
+    }
+
+    /**
+     * Числовой номер абонемента из текстового или {@link #NOT_FOUND}.
+     * Принимается только вид {@link #formatNumber(int)}: префикс и не меньше 4 цифр,
+     * нули в начале только дополняют номер до 4 цифр
+     */
+    protected static int parseNumber(String number) {
+        if (number == null || number.length() < NUMBER_WIDTH + 1 || number.charAt(0) != NUMBER_PREFIX) {
+            return NOT_FOUND;
+        }
+        if (number.length() > NUMBER_WIDTH + 1 && number.charAt(1) == '0') {
+            return NOT_FOUND;
+        }
+        long id = 0;
+        for (int i = 1; i < number.length(); i++) {
+            char digit = number.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return NOT_FOUND;
+            }
+            id = id * 10 + (digit - '0');
+            if (id > Integer.MAX_VALUE) {
+                return NOT_FOUND;
+            }
+        }
+        return id == 0 ? NOT_FOUND : (int) id;
+    }
+
+    private AtomicLongArray findPage(int id) {
+        if (id <= 0) {
+            return null;
+        }
+        AtomicLongArray[] current = pages;
+        int pageIndex = id >>> PAGE_BITS;
+        return pageIndex < current.length ? current[pageIndex] : null;
+    }
+
+    private AtomicLongArray page(int id) {
+        AtomicLongArray page = findPage(id);
+        return page != null ? page : createPage(id >>> PAGE_BITS);
+    }
+
+    private synchronized AtomicLongArray createPage(int pageIndex) {
+        AtomicLongArray[] current = pages;
+        if (pageIndex < current.length && current[pageIndex] != null) {
+            return current[pageIndex];
+        }
+        current = Arrays.copyOf(current, Math.max(current.length, pageIndex + 1));
+        AtomicLongArray page = new AtomicLongArray(PAGE_SIZE);
+        current[pageIndex] = page;
+        pages = current;
+        return page;
+    }
+
+    /**
+     * Упаковка дней начала и окончания абонемента, абонемент действует один месяц.
+     * День окончания позже дня начала, поэтому упакованное значение не равно 0
+     */
+    private static long encode(LocalDate startDate) {
+        long startEpochDay = startDate.toEpochDay();
+        long expiryEpochDay = startDate.plus(1, ChronoUnit.MONTHS).toEpochDay();
+        if (startEpochDay < Integer.MIN_VALUE || expiryEpochDay > Integer.MAX_VALUE) {
+            throw new RuntimeException("Дата абонемента вне допустимого диапазона: " + startDate);
+        }
+        return (startEpochDay + DAY_OFFSET) << 32 | (expiryEpochDay + DAY_OFFSET);
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.metro.underground;
+
+/**
+ * Тариф: цены билетов и абонементов в копейках.
+ * Вызывается при каждой продаже, реализации не должны выделять память
+ */
+public interface Tariff {
+
+    /**
+     * Цена билета
+     *
+     * @param fromId    идентификатор станции отправления {@link Station#getId()}
+     * @param toId      идентификатор станции назначения
+     * @param stages    количество перегонов маршрута
+     * @param transfers количество пересадок маршрута
+     * @param epochDay  день продажи от 1970-01-01
+     */
+    long ticketFare(int fromId, int toId, int stages, int transfers, long epochDay);
+
+    /**
+     * Цена абонемента, начинающегося в указанный день
+     */
+    long subscriptionPrice(long epochDay);
+
+    /**
+     * Зависит ли цена билета от дня продажи, такие цены не кэшируются по паре станций
+     */
+    boolean dependsOnDate();
+}
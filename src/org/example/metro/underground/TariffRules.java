@@ -0,0 +1,147 @@
+package org.example.metro.underground;
+
+import java.time.DayOfWeek;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.example.metro.underground.UndergroundValidatorUtil.checkPrices;
+
+/**
+ * Правила тарифа: сбор за билет, цена перегона по линии отправления, зоны станций с доплатой между зонами,
+ * доплата за пересадку и надбавка или скидка по дням недели в процентах.
+ * Правила компилируются в плоские таблицы {@link CompiledTariff} для каждого снимка сети.
+ * Все цены в копейках
+ */
+public class TariffRules {
+    private static final int MAX_ZONE = 255;
+    private long ticketFee = 20_00;
+    private long stageRate = 5_00; //Цена перегона на линиях без своей цены
+    private long transferSurcharge;
+    private long subscriptionPrice = 3_000_00;
+    private final Map<LineColor, Long> lineStageRates = new EnumMap<>(LineColor.class);
+    private final Map<String, Integer> stationZones = new HashMap<>(); //Станции без зоны - зона 0
+    private final Map<Long, Long> zoneSurcharges = new HashMap<>(); //Ключ - зона отправления и зона назначения
+    private final int[] dayOfWeekPercents = new int[DayOfWeek.values().length];
+
+    public TariffRules() {
+        Arrays.fill(dayOfWeekPercents, 100);
+    }
+
+    /**
+     * Копия правил, последующие изменения исходных правил не влияют на копию
+     */
+    public TariffRules(TariffRules source) {
+        ticketFee = source.ticketFee;
+        stageRate = source.stageRate;
+        transferSurcharge = source.transferSurcharge;
+        subscriptionPrice = source.subscriptionPrice;
+        lineStageRates.putAll(source.lineStageRates);
+        stationZones.putAll(source.stationZones);
+        zoneSurcharges.putAll(source.zoneSurcharges);
+        System.arraycopy(source.dayOfWeekPercents, 0, dayOfWeekPercents, 0, dayOfWeekPercents.length);
+    }
+
+    public TariffRules setTicketFee(long ticketFee) {
+        checkPrices(ticketFee);
+        this.ticketFee = ticketFee;
+        return this;
+    }
+
+    public TariffRules setStageRate(long stageRate) {
+        checkPrices(stageRate);
+        this.stageRate = stageRate;
+        return this;
+    }
+
+    /**
+     * Цена перегона для маршрутов, начинающихся на линии
+     */
+    public TariffRules setLineStageRate(LineColor lineColor, long stageRate) {
+        checkPrices(stageRate);
+        lineStageRates.put(lineColor, stageRate);
+        return this;
+    }
+
+    public TariffRules setTransferSurcharge(long transferSurcharge) {
+        checkPrices(transferSurcharge);
+        this.transferSurcharge = transferSurcharge;
+        return this;
+    }
+
+    public TariffRules setSubscriptionPrice(long subscriptionPrice) {
+        checkPrices(subscriptionPrice);
+        this.subscriptionPrice = subscriptionPrice;
+        return this;
+    }
+
+    public TariffRules setStationZone(String stationName, int zone) {
+        checkZone(zone);
+        stationZones.put(stationName, zone);
+        return this;
+    }
+
+    /**
+     * Доплата за поездку между зонами в обе стороны
+     */
+    public TariffRules setZoneSurcharge(int firstZone, int secondZone, long surcharge) {
+        checkZone(firstZone);
+        checkZone(secondZone);
+        checkPrices(surcharge);
+        zoneSurcharges.put(zonePair(firstZone, secondZone), surcharge);
+        zoneSurcharges.put(zonePair(secondZone, firstZone), surcharge);
+        return this;
+    }
+
+    /**
+     * Цена билета в процентах от расчетной в указанный день недели, например 120 - час пик, 80 - выходные
+     */
+    public TariffRules setDayOfWeekPercent(DayOfWeek dayOfWeek, int percent) {
+        if (percent <= 0) {
+            throw new RuntimeException("Процент цены должен быть больше 0");
+        }
+        dayOfWeekPercents[dayOfWeek.ordinal()] = percent;
+        return this;
+    }
+
+    /**
+     * Компиляция правил в таблицы по идентификаторам станций сети
+     */
+    protected CompiledTariff compile(List<Station> stationsById) {
+        int zoneCount = countZones();
+        long[] stageRates = new long[stationsById.size()];
+        int[] zones = new int[stationsById.size()];
+        for (Station station : stationsById) {
+            stageRates[station.getId()] = lineStageRates.getOrDefault(station.getLine().getColor(), stageRate);
+            zones[station.getId()] = stationZones.getOrDefault(station.getName(), 0);
+        }
+        long[] surcharges = new long[zoneCount * zoneCount];
+        zoneSurcharges.forEach((pair, surcharge) ->
+                surcharges[(int) (pair >>> 32) * zoneCount + (int) (long) pair] = surcharge);
+        return new CompiledTariff(ticketFee, transferSurcharge, subscriptionPrice,
+                stageRates, zones, zoneCount, surcharges, dayOfWeekPercents.clone());
+    }
+
+    private int countZones() {
+        int zoneCount = 1;
+        for (int zone : stationZones.values()) {
+            zoneCount = Math.max(zoneCount, zone + 1);
+        }
+        for (long pair : zoneSurcharges.keySet()) {
+            zoneCount = Math.max(zoneCount, (int) (pair >>> 32) + 1);
+        }
+        return zoneCount;
+    }
+
+    private static long zonePair(int fromZone, int toZone) {
+        return (long) fromZone << 32 | toZone;
+    }
+
+    private static void checkZone(int zone) {
+        if (zone < 0 || zone > MAX_ZONE) {
+            throw new RuntimeException("Номер зоны вне допустимого диапазона: " + zone);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.metro.underground;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Продажа одного билета в пакете продаж
+ */
+public class TicketSale {
+    private final String startStation;
+    private final String finishStation;
+    private final LocalDate date;
+
+    public TicketSale(String startStation, String finishStation, LocalDate date) {
+        this.startStation = Objects.requireNonNull(startStation);
+        this.finishStation = Objects.requireNonNull(finishStation);
+        this.date = Objects.requireNonNull(date);
+    }
+
+    public String getStartStation() {
+        return startStation;
+    }
+
+    public String getFinishStation() {
+        return finishStation;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    @Override
+    public String toString() {
+        return "TicketSale{" +
+                "startStation='" + startStation + '\'' +
+                ", finishStation='" + finishStation + '\'' +
+                ", date=" + date +
+                '}';
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.metro.underground;
+
+/**
+ * Наименьшее время в пути с учетом времени пересадок от одной станции до всех станций сети.
+ * Станции хранятся и по идентификаторам, и в порядке возрастания времени,
+ * поэтому время до станции читается из массива, а станции в пределах времени - префикс упорядоченного массива
+ */
+public class TravelTimes {
+    protected static final int NO_ROUTE = -1;
+    private final int[] secondsById; //NO_ROUTE - станция недостижима
+    private final int[] stationIdsByTime; //Достижимые станции по возрастанию времени, первая - станция отправления
+    private final int[] sortedSeconds; //Время до станций stationIdsByTime
+
+    protected TravelTimes(int[] secondsById, int[] stationIdsByTime, int[] sortedSeconds) {
+        this.secondsById = secondsById;
+        this.stationIdsByTime = stationIdsByTime;
+        this.sortedSeconds = sortedSeconds;
+    }
+
+    /**
+     * Время до станции в секундах или {@link #NO_ROUTE}
+     */
+    protected int getSeconds(int toId) {
+        return secondsById[toId];
+    }
+
+    /**
+     * Количество станций, достижимых не дольше указанного времени, включая станцию отправления
+     */
+    protected int countReachable(long maxSeconds) {
+        int low = 0;
+        int high = sortedSeconds.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedSeconds[middle] <= maxSeconds) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Станция по месту в порядке возрастания времени
+     */
+    protected int getStationIdByRank(int rank) {
+        return stationIdsByTime[rank];
+    }
+
+    /**
+     * Время до станции по месту в порядке возрастания времени
+     */
+    protected int getSecondsByRank(int rank) {
+        return sortedSeconds[rank];
+    }
+}
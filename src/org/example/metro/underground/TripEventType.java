@@ -0,0 +1,8 @@
+package org.example.metro.underground;
+
+/**
+ * Тип события поездки: проход через турникет на вход или на выход
+ */
+public enum TripEventType {
+    ENTRY, EXIT
+}
@@ -5,7 +5,7 @@ import org.example.metro.exceptions.StationAlreadyExistsException;
 
 import java.time.Duration;
 import java.util.Arrays;
-import java.util.Collection;
+import java.util.Map;
 import java.util.Objects;
 
 public class UndergroundValidatorUtil {
@@ -16,11 +16,14 @@ public class UndergroundValidatorUtil {
         }
     }
 
-    public static void checkStationNotExists(Collection<MetroLine> metroLines, String stationName) {
-        boolean hasStationWithSameName = metroLines.stream()
-                .flatMap(e -> e.getStations().stream())
-                .anyMatch(e -> e.getName().equals(stationName));
-        if (hasStationWithSameName) {
+    public static void checkLineIsNotEmpty(MetroLine metroLine) {
+        if (metroLine.getLastStation() == null) {
+            throw new RuntimeException("Line has no stations, cannot create last station");
+        }
+    }
+
+    public static void checkStationNotExists(Map<String, Station> stationsByName, String stationName) {
+        if (stationsByName.containsKey(stationName)) {
             throw new StationAlreadyExistsException(stationName);
         }
     }
@@ -35,13 +38,10 @@ public class UndergroundValidatorUtil {
         }
     }
 
-    public static void checkLineNotExist(Collection<MetroLine> metroLines, String lineColor) {
-        metroLines.stream()
-                .filter(metroLine -> Objects.equals(metroLine.getColor().getValue(), lineColor))
-                .findAny()
-                .ifPresent((metroLine) -> {
-                    throw new LineAlreadyExistsException(lineColor);
-                });
+    public static void checkLineNotExist(Map<String, MetroLine> linesByColor, String lineColor) {
+        if (linesByColor.containsKey(lineColor)) {
+            throw new LineAlreadyExistsException(lineColor);
+        }
     }
 
     public static void checkNotTheSameStations(Station station1, Station station2) {
@@ -50,6 +50,30 @@ public class UndergroundValidatorUtil {
         }
     }
 
+    public static void checkRouteExists(long routeValue, Station stationStart, Station stationFinish) {
+        if (routeValue < 0) {
+            checkNotTheSameStations(stationStart, stationFinish);
+            throw new RuntimeException(
+                    "Нет маршрута между станциями %s %s".formatted(stationStart.getName(), stationFinish.getName())
+            );
+        }
+    }
+
+    public static void checkTransferPenalty(Duration transferPenalty) {
+        Objects.requireNonNull(transferPenalty);
+        if (transferPenalty.isNegative()) {
+            throw new RuntimeException("Время пересадки не может быть отрицательным");
+        }
+    }
+
+    public static void checkPrices(long... prices) {
+        for (long price : prices) {
+            if (price < 0) {
+                throw new RuntimeException("Цена не может быть отрицательной: " + price);
+            }
+        }
+    }
+
     public static void checkPreviousStationIsLastInLine(Station prevStation) {
         if (prevStation.getNextStation() != null) {
             throw new RuntimeException("Предыдущая станция не последняя в линии");
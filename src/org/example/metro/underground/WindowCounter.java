@@ -0,0 +1,73 @@
+package org.example.metro.underground;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Счетчики событий по ключам в кольце корзин времени фиксированной длины.
+ * Корзина хранит накопленное количество событий ключа на конец корзины,
+ * поэтому количество за любое окно из нескольких корзин - разность двух чисел.
+ * Пишет один поток, читать можно из любых потоков
+ */
+public class WindowCounter {
+    private static final long NO_BUCKET = Long.MIN_VALUE;
+    private final int bucketCount;
+    private final AtomicLongArray totals; //Накопленные количества, ключ * bucketCount + корзина по модулю
+    private final AtomicLongArray lastBuckets; //Последняя корзина с событием по ключу
+
+    protected WindowCounter(int keyCount, int bucketCount) {
+        this.bucketCount = bucketCount;
+        this.totals = new AtomicLongArray(keyCount * bucketCount);
+        this.lastBuckets = new AtomicLongArray(keyCount);
+        for (int key = 0; key < keyCount; key++) {
+            lastBuckets.set(key, NO_BUCKET);
+        }
+    }
+
+    /**
+     * Учет события ключа в корзине
+     *
+     * @return false - корзина старше хранимых, событие не учтено
+     */
+    protected boolean add(int key, long bucket) {
+        int base = key * bucketCount;
+        long last = lastBuckets.get(key);
+        if (last == NO_BUCKET || bucket > last) {
+            long total = last == NO_BUCKET ? 0 : totals.get(base + slot(last));
+            long firstEmpty = last == NO_BUCKET ? bucket : Math.max(last + 1, bucket - bucketCount + 1);
+            for (long empty = firstEmpty; empty < bucket; empty++) {
+                totals.lazySet(base + slot(empty), total);
+            }
+            totals.lazySet(base + slot(bucket), total + 1);
+            lastBuckets.lazySet(key, bucket);
+            return true;
+        }
+        if (bucket <= last - bucketCount) {
+            return false;
+        }
+        for (long later = bucket; later <= last; later++) {
+            int index = base + slot(later);
+            totals.lazySet(index, totals.get(index) + 1);
+        }
+        return true;
+    }
+
+    /**
+     * Количество событий ключа в корзинах от fromBucket до toBucket включительно.
+     * Корзины должны быть не старше bucketCount - 1 корзин от последней корзины потока
+     */
+    protected long countBetween(int key, long fromBucket, long toBucket) {
+        return totalAt(key, toBucket) - totalAt(key, fromBucket - 1);
+    }
+
+    private long totalAt(int key, long bucket) {
+        long last = lastBuckets.get(key);
+        if (last == NO_BUCKET || bucket <= last - bucketCount) {
+            return 0;
+        }
+        return totals.get(key * bucketCount + slot(Math.min(bucket, last)));
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) bucketCount);
+    }
+}
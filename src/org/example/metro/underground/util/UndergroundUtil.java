@@ -1,17 +1,26 @@
 package org.example.metro.underground.util;
 
+import java.math.BigDecimal;
 import java.time.Duration;
-import java.util.LinkedHashSet;
+import java.time.LocalDate;
 
 public class UndergroundUtil {
     public static Duration parseTimeToDuration(String textTime) {
         return Duration.parse("PT" + textTime);
     }
 
-    public static <T> T getLastValueFromLinkedHashSet(LinkedHashSet<T> linkedHashSet) {
-        return linkedHashSet.stream()
-                .reduce((a, b) -> b)
-                .orElseThrow(() -> new RuntimeException("LinkedHashSet is empty"));
+    public static BigDecimal kopecksToRoubles(long kopecks) {
+        if (kopecks % 100 == 0) {
+            return BigDecimal.valueOf(kopecks / 100);
+        }
+        return BigDecimal.valueOf(kopecks, 2);
+    }
+
+    public static long checkEpochDay(long epochDay) {
+        if (epochDay < Integer.MIN_VALUE || epochDay > Integer.MAX_VALUE) {
+            throw new RuntimeException("Дата продажи вне допустимого диапазона: " + LocalDate.ofEpochDay(epochDay));
+        }
+        return epochDay;
     }
 
 }
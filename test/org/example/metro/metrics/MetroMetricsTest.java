@@ -0,0 +1,81 @@
+package org.example.metro.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.InvalidAttributeValueException;
+import javax.management.ReflectionException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetroMetricsTest {
+    private final MetroMetrics metrics = new MetroMetrics();
+
+    @Test
+    void disabledMetricsCreateNoHistograms() throws Exception {
+        long start = metrics.startTimer();
+        assertEquals(MetroMetrics.TIMER_DISABLED, start);
+        metrics.stopTimer(MetroMetrics.Timer.SELL_TICKET, start);
+        metrics.increment(MetroMetrics.Counter.TICKETS_SOLD);
+
+        assertEquals(0L, metrics.getAttribute("SellTicketCount"));
+        assertEquals(0L, metrics.getAttribute("SellTicketP99Nanos"));
+        assertTrue(metrics.format().contains("SellTicket count=0 mean=0ns"));
+        assertEquals(0L, metrics.getAttribute("TicketsSold"));
+        assertNull(metrics.getHistogram(MetroMetrics.Timer.SELL_TICKET));
+    }
+
+    @Test
+    void enabledMetricsCountAndTime() throws Exception {
+        metrics.setAttribute(new Attribute("Enabled", true));
+        long start = metrics.startTimer();
+        assertNotEquals(MetroMetrics.TIMER_DISABLED, start);
+        metrics.stopTimer(MetroMetrics.Timer.COUNT_STAGES, start);
+        metrics.add(MetroMetrics.Counter.SUBSCRIPTION_CHECKS, 5);
+
+        assertEquals(1L, metrics.getAttribute("CountStagesCount"));
+        assertEquals(5L, metrics.getAttribute("SubscriptionChecks"));
+        assertEquals(true, metrics.getAttribute("Enabled"));
+        assertTrue(metrics.format().contains("CountStages count=1"));
+
+        metrics.setEnabled(false);
+        metrics.stopTimer(MetroMetrics.Timer.COUNT_STAGES, metrics.startTimer());
+        assertEquals(1L, metrics.getHistogram(MetroMetrics.Timer.COUNT_STAGES).getCount());
+    }
+
+    @Test
+    void rejectsUnknownOperationsAndAttributes() throws Exception {
+        assertEquals(metrics.format(), metrics.invoke("format", new Object[0], new String[0]));
+        assertThrows(ReflectionException.class, () -> metrics.invoke("reset", new Object[0], new String[0]));
+        assertThrows(AttributeNotFoundException.class, () -> metrics.getAttribute("Unknown"));
+        assertThrows(AttributeNotFoundException.class, () -> metrics.setAttribute(new Attribute("TicketsSold", 1L)));
+        assertThrows(InvalidAttributeValueException.class, () -> metrics.setAttribute(new Attribute("Enabled", "true")));
+        assertThrows(InvalidAttributeValueException.class, () -> metrics.setAttribute(new Attribute("Enabled", null)));
+        AttributeList applied = metrics.setAttributes(new AttributeList(List.of(
+                new Attribute("Enabled", 1), new Attribute("Enabled", false))));
+        assertEquals(1, applied.size());
+        assertEquals(false, metrics.getAttribute("Enabled"));
+        assertEquals(1, metrics.getAttributes(new String[]{"Enabled", "Unknown"}).size());
+    }
+
+    @Test
+    void histogramReportsPercentilesWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 1000; nanos++) {
+            histogram.record(nanos * 1000);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_500, histogram.getMean());
+        long p99 = histogram.getPercentile(0.99);
+        assertTrue(p99 >= 990_000 && p99 <= 990_000 * 1.0625, String.valueOf(p99));
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.metro.server;
+
+import org.example.metro.underground.Metro;
+import org.example.metro.underground.TestMetros;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetroServerTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 1, 1);
+    private final HttpClient client = HttpClient.newHttpClient();
+    private Metro metro;
+    private MetroServer server;
+
+    @BeforeEach
+    void start() {
+        metro = TestMetros.perm();
+        server = MetroServer.start(metro, 0, 2, 100);
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void sellsTicketsAndSubscriptions() throws Exception {
+        assertEquals(200, post("/tickets?station=" + encode("Пермь 1") + "&start=" + encode("Пермь 1")
+                + "&finish=" + encode("Соборная") + "&date=" + DAY).statusCode());
+        assertEquals(new BigDecimal("30"), metro.topIncomeDays(1).get(0).getValue());
+
+        HttpResponse<String> subscription = post("/subscriptions?station=" + encode("Пермь 1") + "&date=" + DAY);
+        assertEquals(200, subscription.statusCode());
+        String number = subscription.body();
+        assertEquals("true", get("/subscriptions/active?number=" + number + "&date=" + DAY.plusDays(10)).body());
+        assertEquals("false", get("/subscriptions/active?number=" + number + "&date=" + DAY.plusMonths(2)).body());
+        assertTrue(get("/stats").body().contains("/tickets"));
+    }
+
+    @Test
+    void rejectsBadRequests() throws Exception {
+        assertEquals(404, get("/unknown").statusCode());
+        assertEquals(405, get("/tickets").statusCode());
+        assertEquals(400, post("/subscriptions?station=" + encode("Пермь 1")).statusCode());
+        assertEquals(400, post("/subscriptions?station=" + encode("Нет такой") + "&date=" + DAY).statusCode());
+    }
+
+    @Test
+    void doesNotChangeSystemProperties() {
+        assertNull(System.getProperty("sun.net.httpserver.nodelay"));
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    private HttpResponse<String> post(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
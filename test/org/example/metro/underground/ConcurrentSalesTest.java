@@ -0,0 +1,62 @@
+package org.example.metro.underground;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConcurrentSalesTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+    private static final int THREADS = 8;
+    private static final int TICKETS = 5000;
+    private static final int SUBSCRIPTIONS = 200;
+
+    @Test
+    void keepsEverySaleAndUniqueNumbers() throws Exception {
+        Metro metro = TestMetros.perm();
+        String[] stations = {"Спортивная", "Пермь 2"};
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<String>>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            results.add(executor.submit(() -> {
+                start.await();
+                Station station = metro.getStationByName(stations[thread % 2]);
+                List<String> numbers = new ArrayList<>();
+                for (int i = 0; i < TICKETS; i++) {
+                    station.saleOneTicket("Спортивная", "Пермь 2", DAY.plusDays(i % 3));
+                    if (i % (TICKETS / SUBSCRIPTIONS) == 0) {
+                        numbers.add(station.saleSubscription(DAY).getNumber());
+                    }
+                }
+                return numbers;
+            }));
+        }
+        start.countDown();
+        Set<String> numbers = new HashSet<>();
+        for (Future<List<String>> result : results) {
+            numbers.addAll(result.get());
+        }
+        executor.shutdown();
+
+        assertEquals(THREADS * SUBSCRIPTIONS, numbers.size());
+        long expected = (long) THREADS * TICKETS * 40 + (long) THREADS * SUBSCRIPTIONS * 3000;
+        assertEquals(BigDecimal.valueOf(expected), metro.incomeBetween(DAY, DAY.plusDays(2)));
+        assertEquals(metro.incomeBetween(DAY, DAY.plusDays(2)),
+                metro.analyzeRevenue(DAY, DAY.plusDays(2)).getTotal());
+        BigDecimal byStation = metro.incomeByStation(DAY, DAY.plusDays(2)).values().stream()
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, byStation.compareTo(BigDecimal.valueOf(expected)));
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.metro.underground;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DailyRevenueTest {
+    private final DailyRevenue revenue = new DailyRevenue();
+
+    @Test
+    void sumsDaysAcrossPages() {
+        revenue.add(day("2024-01-01"), 100);
+        revenue.add(day("2024-01-01"), 50);
+        revenue.add(day("2025-06-30"), 7);
+        assertEquals(150, revenue.get(day("2024-01-01")));
+        assertEquals(0, revenue.get(day("2024-01-02")));
+        assertEquals(157, revenue.sumBetween(day("2023-01-01"), day("2026-01-01")));
+        assertEquals(150, revenue.sumBetween(day("2024-01-01"), day("2025-06-29")));
+        assertEquals(7, revenue.sumBetween(day("2025-06-30"), day("2025-06-30")));
+    }
+
+    @Test
+    void acceptsDatesBefore1970() {
+        revenue.add(day("2024-03-01"), 1);
+        revenue.add(day("1969-12-31"), 20);
+        revenue.add(day("1900-02-15"), 300);
+        revenue.add(day("1970-01-01"), 4000);
+        assertEquals(20, revenue.get(day("1969-12-31")));
+        assertEquals(300, revenue.get(day("1900-02-15")));
+        assertEquals(4320, revenue.sumBetween(day("1800-01-01"), day("1970-01-01")));
+        assertEquals(4321, revenue.sumBetween(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(320, revenue.sumBetween(day("1900-02-15"), day("1969-12-31")));
+
+        List<LocalDate> dates = new ArrayList<>();
+        revenue.forEach((date, kopecks) -> dates.add(date));
+        assertEquals(List.of(LocalDate.parse("1900-02-15"), LocalDate.parse("1969-12-31"),
+                LocalDate.parse("1970-01-01"), LocalDate.parse("2024-03-01")), dates);
+
+        List<Long> days = new ArrayList<>();
+        revenue.forEachBetween(day("1969-01-01"), day("2000-01-01"), (epochDay, kopecks) -> days.add(epochDay));
+        assertEquals(List.of(day("1969-12-31"), day("1970-01-01")), days);
+    }
+
+    private static long day(String date) {
+        return LocalDate.parse(date).toEpochDay();
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.metro.underground;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FareCacheTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    @Test
+    void evictsLeastRecentlyUsedPairOfSet() {
+        FareCache cache = new FareCache(8, new LongAdder(), new LongAdder());
+        for (int id = 0; id < 8; id++) {
+            cache.put(id, id + 1, id * 100L);
+        }
+        assertEquals(0, cache.get(0, 1));
+        cache.put(8, 9, 800);
+        assertEquals(FareCache.MISSING, cache.get(1, 2));
+        assertEquals(0, cache.get(0, 1));
+        assertEquals(800, cache.get(8, 9));
+        cache.put(8, 9, 900);
+        assertEquals(900, cache.get(8, 9));
+        assertEquals(FareCache.MISSING, cache.get(9, 8));
+    }
+
+    @Test
+    void countsHitsAndMissesOfSales() {
+        Metro metro = TestMetros.perm();
+        metro.setFareCacheCapacity(64);
+        Station station = metro.getStationByName("Спортивная");
+        station.saleOneTicket("Спортивная", "Соборная", DAY);
+        station.saleOneTicket("Спортивная", "Соборная", DAY);
+        station.saleOneTicket("Спортивная", "Соборная", DAY.plusDays(1));
+        assertEquals(1, metro.getFareCacheMisses());
+        assertEquals(2, metro.getFareCacheHits());
+    }
+
+    @Test
+    void networkEditsResetCache() {
+        Metro metro = TestMetros.perm();
+        metro.setFareCacheCapacity(64);
+        Station station = metro.getStationByName("Спортивная");
+        station.saleOneTicket("Спортивная", "Соборная", DAY);
+        metro.createLastStation(LineColor.BLUE.getValue(), "Бахаревка", "2M");
+        station.saleOneTicket("Спортивная", "Соборная", DAY);
+        assertEquals(2, metro.getFareCacheMisses());
+
+        metro.createLastStation(LineColor.RED.getValue(), "Гайва", "2M");
+        metro.getStationByName("Гайва").setChangeLineStations(Set.of(metro.getStationByName("Бахаревка")));
+        station.saleOneTicket("Спортивная", "Соборная", DAY);
+        assertEquals(3, metro.getFareCacheMisses());
+        assertEquals(0, metro.getFareCacheHits());
+    }
+
+    @Test
+    void smallCacheChargesSameFaresAsNoCache() {
+        Metro cached = TestMetros.perm();
+        cached.setFareCacheCapacity(8);
+        Metro uncached = TestMetros.perm();
+        List<Station> stations = uncached.getNetwork().getStations();
+        for (int round = 0; round < 3; round++) {
+            for (Station from : stations) {
+                for (Station to : stations) {
+                    if (from != to) {
+                        cached.getStationByName(from.getName()).saleOneTicket(from.getName(), to.getName(), DAY);
+                        from.saleOneTicket(from.getName(), to.getName(), DAY);
+                    }
+                }
+            }
+        }
+        assertEquals(uncached.incomeBetween(DAY, DAY), cached.incomeBetween(DAY, DAY));
+        assertEquals(uncached.incomeByStation(DAY, DAY), cached.incomeByStation(DAY, DAY));
+    }
+
+    @Test
+    void dateDependentTariffBypassesCache() {
+        Metro metro = TestMetros.perm();
+        metro.setFareCacheCapacity(64);
+        metro.setTariff(new TariffRules().setDayOfWeekPercent(DayOfWeek.SATURDAY, 50));
+        Station station = metro.getStationByName("Спортивная");
+        station.saleOneTicket("Спортивная", "Соборная", DAY);
+        station.saleOneTicket("Спортивная", "Соборная", DAY);
+        assertEquals(0, metro.getFareCacheHits() + metro.getFareCacheMisses());
+        assertThrows(RuntimeException.class, () -> metro.setFareCacheCapacity(-1));
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.metro.underground;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrozenNetworkTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+    private final Metro metro = TestMetros.perm();
+
+    @Test
+    void snapshotDoesNotSeeLaterEdits() {
+        Metro redLine = TestMetros.permRedLine(new Metro("Пермь"));
+        FrozenNetwork before = redLine.getNetwork();
+        assertSame(before, redLine.getNetwork());
+        redLine.createLine(LineColor.BLUE);
+        redLine.createFirstStation(LineColor.BLUE.getValue(), "Остров");
+
+        assertNull(before.findStation("Остров"));
+        assertNull(before.findLine(LineColor.BLUE.getValue()));
+        assertNull(before.getLineStations(LineColor.BLUE));
+        assertEquals(1, before.getLineColors().size());
+        FrozenNetwork after = redLine.getNetwork();
+        assertNotSame(before, after);
+        assertEquals(2, after.getLineColors().size());
+        assertEquals("Остров", after.findStation("Остров").getName());
+    }
+
+    @Test
+    void lineStationsDoNotChangeAfterAppend() {
+        FrozenNetwork before = metro.getNetwork();
+        List<Station> redBefore = before.getLineStations(LineColor.RED);
+        metro.createLastStation(LineColor.RED.getValue(), "Разгуляй", "2M");
+
+        assertEquals(6, redBefore.size());
+        assertEquals("Дворец Культуры", redBefore.get(5).getName());
+        assertSame(redBefore, before.getLineStations(LineColor.RED));
+        List<Station> redAfter = metro.getNetwork().getLineStations(LineColor.RED);
+        assertEquals(7, redAfter.size());
+        assertEquals(6, metro.getNetwork().getLineIndex(redAfter.get(6).getId()));
+    }
+
+    @Test
+    void incomeByLineListsLinesOfCurrentSnapshot() {
+        Metro redLine = TestMetros.permRedLine(new Metro("Пермь"));
+        redLine.getStationByName("Спортивная").saleOneTicket("Спортивная", "Пермь 2", DAY);
+        assertEquals(EnumSet.of(LineColor.RED), redLine.incomeByLine(DAY, DAY).keySet());
+        redLine.createLine(LineColor.BLUE);
+        Map<LineColor, BigDecimal> incomes = redLine.incomeByLine(DAY, DAY);
+        assertEquals(EnumSet.of(LineColor.RED, LineColor.BLUE), incomes.keySet());
+        assertEquals(new BigDecimal("40"), incomes.get(LineColor.RED));
+        assertEquals(0, incomes.get(LineColor.BLUE).signum());
+        assertEquals(incomes, redLine.analyzeRevenue(DAY, DAY).getByLine());
+    }
+
+    @Test
+    void reportsRunWhileNetworkIsEdited() throws InterruptedException {
+        Metro metro = TestMetros.permRedLine(new Metro("Пермь"));
+        metro.getStationByName("Спортивная").saleOneTicket("Спортивная", "Пермь 2", DAY);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                while (!done.get()) {
+                    assertTrue(metro.incomeByLine(DAY, DAY).containsKey(LineColor.RED));
+                    assertTrue(metro.analyzeRevenue(DAY, DAY, false).getByLine().containsKey(LineColor.RED));
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        reader.start();
+        metro.createLine(LineColor.BLUE);
+        metro.createFirstStation(LineColor.BLUE.getValue(), "Остров");
+        for (int i = 1; i <= 200; i++) {
+            metro.createLastStation(LineColor.BLUE.getValue(), "Остров " + i, "1M");
+            metro.createLastStation(LineColor.RED.getValue(), "Разгуляй " + i, "1M");
+        }
+        done.set(true);
+        reader.join();
+        assertNull(failure.get());
+        assertEquals(LineColor.values().length, metro.incomeByLine(DAY, DAY).size());
+        assertEquals(206, metro.getNetwork().getLineStations(LineColor.RED).size());
+        assertFalse(metro.toString().isEmpty());
+    }
+
+    @Test
+    void routesWithoutMatrixMatchMatrix() {
+        Metro withMatrix = TestMetros.islands();
+        Metro withoutMatrix = new Metro("Пермь");
+        withoutMatrix.setStageMatrixEnabled(false);
+        TestMetros.islands(withoutMatrix);
+        FrozenNetwork expected = withMatrix.getNetwork();
+        FrozenNetwork actual = withoutMatrix.getNetwork();
+        int size = expected.getStations().size();
+        for (int from = 0; from < size; from++) {
+            for (int to = 0; to < size; to++) {
+                assertEquals(expected.getRoute(from, to), actual.getRoute(from, to));
+            }
+        }
+        int first = actual.findStation("Остров").getId();
+        int last = actual.findStation("Маяк").getId();
+        assertEquals(2, actual.getStages(first, last));
+        assertEquals(0, actual.getTransfers(last, first));
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.metro.underground;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IsochroneTest {
+    private final Metro metro = TestMetros.perm();
+
+    @Test
+    void includesStationsExactlyAtMaxTravelTime() {
+        Map<String, Duration> isochrone = metro.findIsochrone("Спортивная", Duration.parse("PT4M19S"));
+        assertEquals(List.of("Спортивная", "Медведковская", "Молодежная"), List.copyOf(isochrone.keySet()));
+        assertEquals(Duration.parse("PT2M21S"), isochrone.get("Медведковская"));
+        assertEquals(Duration.parse("PT4M19S"), isochrone.get("Молодежная"));
+        assertEquals(List.of("Спортивная", "Медведковская"),
+                List.copyOf(metro.findIsochrone("Спортивная", Duration.parse("PT4M18S")).keySet()));
+    }
+
+    @Test
+    void includesStartStation() {
+        assertEquals(Map.of("Спортивная", Duration.ZERO), metro.findIsochrone("Спортивная", Duration.ZERO));
+        assertEquals(Duration.ZERO, metro.findIsochrone("Соборная", Duration.ofHours(1)).get("Соборная"));
+        assertThrows(RuntimeException.class, () -> metro.findIsochrone("Спортивная", Duration.ofSeconds(-1)));
+    }
+
+    @Test
+    void omitsUnreachableStations() {
+        Metro islands = TestMetros.islands();
+        Map<String, Duration> isochrone = islands.findIsochrone("Спортивная", Duration.ofDays(1));
+        assertEquals(6, isochrone.size());
+        assertFalse(isochrone.containsKey("Остров"));
+        assertEquals(Duration.parse("PT13M55S"), isochrone.get("Дворец Культуры"));
+        assertEquals(List.of("Остров", "Пристань", "Маяк"),
+                List.copyOf(islands.findIsochrone("Остров", Duration.ofDays(1)).keySet()));
+    }
+
+    @Test
+    void transferPenaltyChangesReachableStations() {
+        Duration maxTravelTime = Duration.ofMinutes(10);
+        Set<String> withoutPenalty = metro.findIsochrone("Спортивная", maxTravelTime).keySet();
+        assertEquals(Set.of("Спортивная", "Медведковская", "Молодежная", "Пермь 1", "Пермь 2", "Тяжмаш",
+                "Улица Кирова"), withoutPenalty);
+
+        metro.setTransferPenalty(Duration.ofMinutes(2));
+        Map<String, Duration> withPenalty = metro.findIsochrone("Спортивная", maxTravelTime);
+        assertEquals(Set.of("Спортивная", "Медведковская", "Молодежная", "Пермь 1", "Пермь 2", "Тяжмаш"),
+                withPenalty.keySet());
+        assertEquals(Duration.parse("PT9M19S"), withPenalty.get("Тяжмаш"));
+        assertEquals(Duration.parse("PT9M29S"), withPenalty.get("Пермь 2"));
+    }
+
+    @Test
+    void dropsCachedTravelTimesAfterNetworkChange() {
+        int startId = metro.getStationByName("Спортивная").getId();
+        TravelTimes before = metro.getNetwork().getTravelTimes(startId);
+        assertSame(before, metro.getNetwork().getTravelTimes(startId));
+        assertEquals(11, metro.findIsochrone("Спортивная", Duration.ofDays(1)).size());
+
+        metro.createLastStation(LineColor.RED.getValue(), "Разгуляй", "2M");
+        assertNotSame(before, metro.getNetwork().getTravelTimes(startId));
+        Map<String, Duration> isochrone = metro.findIsochrone("Спортивная", Duration.ofDays(1));
+        assertEquals(12, isochrone.size());
+        assertEquals(Duration.parse("PT15M55S"), isochrone.get("Разгуляй"));
+    }
+}
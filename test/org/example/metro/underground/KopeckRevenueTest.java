@@ -0,0 +1,36 @@
+package org.example.metro.underground;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.example.metro.underground.util.UndergroundUtil.kopecksToRoubles;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KopeckRevenueTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    @Test
+    void convertsKopecksToRoubles() {
+        assertEquals(new BigDecimal("123.45"), kopecksToRoubles(123_45));
+        assertEquals(new BigDecimal("0.05"), kopecksToRoubles(5));
+        assertEquals(new BigDecimal("-0.50"), kopecksToRoubles(-50));
+        assertEquals(new BigDecimal("40"), kopecksToRoubles(40_00));
+    }
+
+    @Test
+    void keepsKopecksOfEverySale() {
+        Metro metro = TestMetros.perm();
+        metro.setTariff(new FlatTariff(20_15, 1_05, 2_999_99));
+        Station station = metro.getStationByName("Спортивная");
+        for (int i = 0; i < 3; i++) {
+            station.saleOneTicket("Спортивная", "Пермь 2", DAY);
+        }
+        station.saleSubscription(DAY.plusDays(1));
+        assertEquals(new BigDecimal("73.05"), metro.incomeBetween(DAY, DAY));
+        assertEquals(new BigDecimal("3073.04"), metro.incomeBetween(DAY, DAY.plusDays(1)));
+        assertEquals(new BigDecimal("3073.04"), metro.incomeByLine(DAY, DAY.plusDays(1)).get(LineColor.RED));
+        assertEquals(new BigDecimal("3073.04"), metro.analyzeRevenue(DAY, DAY.plusDays(1)).getTotal());
+    }
+}
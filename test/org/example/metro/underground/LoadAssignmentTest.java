@@ -0,0 +1,98 @@
+package org.example.metro.underground;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LoadAssignmentTest {
+    private final Metro metro = TestMetros.perm();
+
+    @Test
+    void loadsSegmentsInEachDirection() {
+        OdFlows flows = new OdFlows()
+                .add(station("Спортивная"), station("Пермь 2"), 100)
+                .add(station("Пермь 2"), station("Спортивная"), 30)
+                .add(station("Молодежная"), station("Соборная"), 10);
+        SegmentLoads loads = metro.assignLoads(flows, RouteCriterion.STAGES);
+
+        assertEquals(100, loads.getLoad("Спортивная", "Медведковская"));
+        assertEquals(30, loads.getLoad("Медведковская", "Спортивная"));
+        assertEquals(110, loads.getLoad("Молодежная", "Пермь 1"));
+        assertEquals(100, loads.getLoad("Пермь 1", "Пермь 2"));
+        assertEquals(30, loads.getLoad("Пермь 2", "Пермь 1"));
+        assertEquals(0, loads.getLoad("Пермь 2", "Дворец Культуры"));
+        assertEquals(10, loads.getLoad("Тяжмаш", "Нижнекамская"));
+        assertEquals(10, loads.getLoad("Нижнекамская", "Соборная"));
+        assertEquals(0, loads.getLoad("Соборная", "Нижнекамская"));
+        assertEquals(0, loads.getLoad("Улица Кирова", "Тяжмаш"));
+        assertEquals(110, loads.getMaxLineLoad(LineColor.RED));
+        assertEquals(10, loads.getMaxLineLoad(LineColor.BLUE));
+        assertEquals(0, loads.getUnroutedPassengers());
+        assertThrows(RuntimeException.class, () -> loads.getLoad("Спортивная", "Молодежная"));
+    }
+
+    @Test
+    void loadsKeepLinesOfAssignedSnapshot() {
+        OdFlows flows = new OdFlows().add(station("Спортивная"), station("Дворец Культуры"), 50);
+        SegmentLoads loads = metro.assignLoads(flows, RouteCriterion.STAGES);
+        metro.createLastStation(LineColor.RED.getValue(), "Разгуляй", "2M");
+
+        assertEquals(50, loads.getMaxLineLoad(LineColor.RED));
+        assertEquals(50, loads.getLoad("Пермь 2", "Дворец Культуры"));
+        assertThrows(RuntimeException.class, () -> loads.getLoad("Дворец Культуры", "Разгуляй"));
+    }
+
+    @Test
+    void countsPassengersWithoutRoute() {
+        Metro islands = TestMetros.islands();
+        OdFlows flows = new OdFlows()
+                .add(islands.getStationByName("Спортивная"), islands.getStationByName("Остров"), 7)
+                .add(islands.getStationByName("Маяк"), islands.getStationByName("Пермь 2"), 5)
+                .add(islands.getStationByName("Остров"), islands.getStationByName("Маяк"), 3);
+        SegmentLoads loads = islands.assignLoads(flows, RouteCriterion.TIME);
+
+        assertEquals(12, loads.getUnroutedPassengers());
+        assertEquals(3, loads.getLoad("Остров", "Пристань"));
+        assertEquals(3, loads.getLoad("Пристань", "Маяк"));
+        assertEquals(0, loads.getMaxLineLoad(LineColor.RED));
+        assertEquals(3, loads.getMaxLineLoad(LineColor.BLUE));
+    }
+
+    @Test
+    void parallelAssignmentMatchesSequential() {
+        List<Station> stations = metro.getNetwork().getStations();
+        Random random = new Random(42);
+        OdFlows flows = new OdFlows();
+        for (int i = 0; i < 5000; i++) {
+            flows.add(random.nextInt(stations.size()), random.nextInt(stations.size()), random.nextInt(1000));
+        }
+        for (RouteCriterion criterion : RouteCriterion.values()) {
+            SegmentLoads sequential = metro.assignLoads(flows, criterion, false);
+            SegmentLoads parallel = metro.assignLoads(flows, criterion, true);
+            for (Station station : stations) {
+                Station next = station.getNextStation();
+                if (next != null) {
+                    assertEquals(sequential.getLoad(station.getName(), next.getName()),
+                            parallel.getLoad(station.getName(), next.getName()));
+                    assertEquals(sequential.getLoad(next.getName(), station.getName()),
+                            parallel.getLoad(next.getName(), station.getName()));
+                }
+            }
+            assertEquals(sequential.getUnroutedPassengers(), parallel.getUnroutedPassengers());
+        }
+    }
+
+    @Test
+    void rejectsUnknownStationIds() {
+        OdFlows flows = new OdFlows().add(0, metro.getNetwork().getStations().size(), 1);
+        assertThrows(RuntimeException.class, () -> metro.assignLoads(flows, RouteCriterion.STAGES));
+    }
+
+    private Station station(String name) {
+        return metro.getStationByName(name);
+    }
+}
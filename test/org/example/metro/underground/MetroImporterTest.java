@@ -0,0 +1,94 @@
+package org.example.metro.underground;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetroImporterTest {
+    private static final String PERM = """
+            # линия;станция;время от предыдущей станции;пересадки
+            Красная;Спортивная;;
+            Красная;Медведковская;2M21S;
+            Красная;Молодежная;1M58S;
+            Красная;Пермь 1;3M;Тяжмаш
+
+            Красная;Пермь 2;2M10S;
+            Красная;Дворец Культуры;4M26S;
+            Синяя;Пацанская;;
+            Синяя;Улица Кирова;1M30S;
+            Синяя;Тяжмаш;1M47S;Пермь 1
+            Синяя;Нижнекамская;3M19S;
+            Синяя;Соборная;1M48S;
+            """;
+
+    @Test
+    void importedNetworkMatchesBuiltNetwork() {
+        Metro imported = new Metro("Пермь");
+        imported.importNetwork(new StringReader(PERM));
+        Metro built = TestMetros.perm();
+        for (Station from : built.getNetwork().getStations()) {
+            for (Station to : built.getNetwork().getStations()) {
+                if (from != to) {
+                    assertEquals(built.countStages(from.getName(), to.getName()),
+                            imported.countStages(from.getName(), to.getName()));
+                    assertEquals(built.findFastestTravelTime(from.getName(), to.getName()),
+                            imported.findFastestTravelTime(from.getName(), to.getName()));
+                }
+            }
+        }
+    }
+
+    @Test
+    void appendsToExistingLines() {
+        Metro metro = TestMetros.permRedLine(new Metro("Пермь"));
+        metro.importNetwork(new StringReader("""
+                Красная;Бахаревка;2M;
+                Синяя;Гайва;;Бахаревка
+                """));
+        assertEquals(Duration.ofMinutes(2), metro.findFastestTravelTime("Дворец Культуры", "Бахаревка"));
+        assertEquals(metro.countStages("Дворец Культуры", "Бахаревка"), metro.countStages("Дворец Культуры", "Гайва"));
+    }
+
+    @Test
+    void rejectsMalformedRows() {
+        assertRejected("Строка 1:", "Черная;Спортивная;;");
+        assertRejected("Строка 1:", "Красная;;;");
+        assertRejected("Строка 1:", "Красная;Спортивная;2M;");
+        assertRejected("Строка 2:", "Красная;Спортивная;;\nКрасная;Пермь 1;;");
+        assertRejected("Строка 2:", "Красная;Спортивная;;\nКрасная;Пермь 1;три минуты;");
+        assertRejected("Строка 2:", "Красная;Спортивная;;\nКрасная;Пермь 1;-1M;");
+        assertRejected("Строка 3:", "Красная;Спортивная;;\n\nКрасная;Спортивная;1M;");
+        assertRejected("Строка 1:", "Красная;Спортивная;;Тяжмаш");
+    }
+
+    @Test
+    void rejectsStationsOfCurrentNetwork() {
+        Metro metro = TestMetros.perm();
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> metro.importNetwork(new StringReader("Красная;Соборная;1M;")));
+        assertTrue(e.getMessage().startsWith("Строка 1:"), e.getMessage());
+    }
+
+    @Test
+    void failedImportLeavesNetworkUnchanged() {
+        Metro metro = new Metro("Пермь");
+        assertThrows(RuntimeException.class, () -> metro.importNetwork(new StringReader(
+                "Красная;Спортивная;;\nКрасная;Пермь 1;3M;\nСиняя;Тяжмаш;;Нет такой")));
+        assertTrue(metro.getNetwork().getStations().isEmpty());
+        assertTrue(metro.getNetwork().getLineColors().isEmpty());
+        metro.importNetwork(new StringReader("Красная;Спортивная;;\nКрасная;Пермь 1;3M;"));
+        assertEquals(1, metro.countStages("Спортивная", "Пермь 1"));
+    }
+
+    private static void assertRejected(String prefix, String csv) {
+        Metro metro = new Metro("Пермь");
+        RuntimeException e = assertThrows(RuntimeException.class, () -> metro.importNetwork(new StringReader(csv)));
+        assertTrue(e.getMessage().startsWith(prefix), e.getMessage());
+        assertTrue(metro.getNetwork().getStations().isEmpty());
+    }
+}
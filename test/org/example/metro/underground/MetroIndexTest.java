@@ -0,0 +1,42 @@
+package org.example.metro.underground;
+
+import org.example.metro.exceptions.LineAlreadyExistsException;
+import org.example.metro.exceptions.LineNotExistsException;
+import org.example.metro.exceptions.StationAlreadyExistsException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MetroIndexTest {
+    private final Metro metro = TestMetros.perm();
+
+    @Test
+    void findsStationsCreatedOnAnyLine() {
+        Station created = metro.createLastStation(LineColor.BLUE.getValue(), "Бахаревка", "2M");
+        assertSame(created, metro.getStationByName("Бахаревка"));
+        assertEquals(LineColor.RED, metro.getStationByName("Пермь 1").getLine().getColor());
+        assertEquals(LineColor.BLUE, metro.getStationByName("Тяжмаш").getLine().getColor());
+        assertThrows(RuntimeException.class, () -> metro.getStationByName("Гайва"));
+    }
+
+    @Test
+    void rejectsDuplicateNamesAndLines() {
+        assertThrows(StationAlreadyExistsException.class,
+                () -> metro.createLastStation(LineColor.BLUE.getValue(), "Спортивная", "2M"));
+        assertThrows(LineAlreadyExistsException.class, () -> metro.createLine(LineColor.RED));
+
+        Metro redLine = TestMetros.permRedLine(new Metro("Пермь"));
+        assertThrows(LineNotExistsException.class,
+                () -> redLine.createFirstStation(LineColor.BLUE.getValue(), "Гайва"));
+        redLine.createLine(LineColor.BLUE);
+        assertThrows(RuntimeException.class,
+                () -> redLine.createFirstStation(LineColor.BLUE.getValue(), "Гайва", Set.of("Нет такой")));
+        assertThrows(RuntimeException.class, () -> redLine.getStationByName("Гайва"));
+        redLine.createFirstStation(LineColor.BLUE.getValue(), "Гайва", Set.of("Пермь 1"));
+        assertEquals("Гайва", redLine.getStationByName("Гайва").getName());
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.metro.underground;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetroRegistryTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+    private final MetroRegistry registry = new MetroRegistry();
+
+    @Test
+    void sharesStationNamesBetweenCities() {
+        Metro perm = TestMetros.perm(registry.createCity(new String("Пермь"), new CityConfig()));
+        Metro copy = TestMetros.perm(registry.createCity(new String("Копия"), new CityConfig()));
+        assertSame(perm.getStationByName("Соборная").getName(), copy.getStationByName("Соборная").getName());
+        assertEquals(2 + perm.getNetwork().getStations().size(), registry.getNameCount());
+        assertThrows(RuntimeException.class, () -> registry.createCity("Пермь", new CityConfig()));
+        assertThrows(RuntimeException.class, () -> registry.getCity("Казань"));
+    }
+
+    @Test
+    void sellsInTheRequestedCity() {
+        Metro perm = TestMetros.perm(registry.createCity("Пермь", new CityConfig()));
+        Metro copy = TestMetros.perm(registry.createCity("Копия", new CityConfig().setTariff(new FlatTariff(2000, 0, 300000))));
+        registry.sellTicket("Пермь", "Спортивная", "Спортивная", "Соборная", DAY);
+        registry.sellTicket("Копия", "Спортивная", "Спортивная", "Соборная", DAY);
+        assertEquals(new BigDecimal("45"), perm.incomeBetween(DAY, DAY));
+        assertEquals(new BigDecimal("20"), copy.incomeBetween(DAY, DAY));
+
+        String number = registry.sellSubscription("Пермь", "Соборная", DAY).getNumber();
+        assertTrue(registry.isSubscriptionActive("Пермь", number, DAY));
+        assertFalse(registry.isSubscriptionActive("Копия", number, DAY));
+        registry.removeCity("Копия");
+        assertEquals(1, registry.getCities().size());
+    }
+
+    @Test
+    void limitsSubscriptionsPerCity() {
+        registry.createCity("Пермь", new CityConfig().setSubscriptionLimit(1));
+        Metro metro = TestMetros.perm(registry.getCity("Пермь"));
+        registry.sellSubscription("Пермь", "Соборная", DAY);
+        assertThrows(RuntimeException.class, () -> metro.getStationByName("Соборная").saleSubscription(DAY));
+    }
+
+    @Test
+    void faresMatchWithAndWithoutStageMatrix() {
+        Metro withMatrix = TestMetros.perm(registry.createCity("С матрицей", new CityConfig()));
+        Metro withoutMatrix = TestMetros.perm(registry.createCity("Без матрицы",
+                new CityConfig().setStageMatrixEnabled(false)));
+        FrozenNetwork frozen = withMatrix.getNetwork();
+        for (Station from : frozen.getStations()) {
+            for (Station to : frozen.getStations()) {
+                if (from == to) {
+                    continue;
+                }
+                assertEquals(withMatrix.findFare(from.getName(), to.getName(), DAY.toEpochDay()),
+                        withoutMatrix.findFare(from.getName(), to.getName(), DAY.toEpochDay()));
+                assertEquals(withMatrix.countStages(from.getName(), to.getName()),
+                        withoutMatrix.countStages(from.getName(), to.getName()));
+            }
+        }
+    }
+
+    @Test
+    void sameStationRejectedInBothModes() {
+        Metro withMatrix = TestMetros.perm(registry.createCity("С матрицей", new CityConfig()));
+        Metro withoutMatrix = TestMetros.perm(registry.createCity("Без матрицы",
+                new CityConfig().setStageMatrixEnabled(false)));
+        RuntimeException matrixError = assertThrows(RuntimeException.class,
+                () -> withMatrix.findFare("Пермь 1", "Пермь 1", DAY.toEpochDay()));
+        RuntimeException searchError = assertThrows(RuntimeException.class,
+                () -> withoutMatrix.findFare("Пермь 1", "Пермь 1", DAY.toEpochDay()));
+        assertEquals(matrixError.getMessage(), searchError.getMessage());
+        assertThrows(RuntimeException.class, () -> withoutMatrix.countStages("Пермь 1", "Пермь 1"));
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.metro.underground;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetroSnapshotTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restoresNetworkAndSubscriptions() {
+        Metro metro = TestMetros.perm();
+        Station station = metro.getStationByName("Соборная");
+        String active = station.saleSubscription(DAY).getNumber();
+        String beforeEpoch = station.saleSubscription(LocalDate.of(1969, 12, 20)).getNumber();
+        Path file = directory.resolve("perm.snapshot");
+        metro.saveSnapshot(file);
+
+        Metro loaded = Metro.loadSnapshot(file);
+        assertEquals(metro.getCity(), loaded.getCity());
+        List<Station> stations = metro.getNetwork().getStations();
+        assertEquals(names(stations), names(loaded.getNetwork().getStations()));
+        for (Station from : stations) {
+            for (Station to : stations) {
+                if (from != to) {
+                    assertEquals(metro.countStages(from.getName(), to.getName()),
+                            loaded.countStages(from.getName(), to.getName()));
+                    assertEquals(metro.findFastestTravelTime(from.getName(), to.getName()),
+                            loaded.findFastestTravelTime(from.getName(), to.getName()));
+                }
+            }
+        }
+        assertTrue(loaded.isSubscriptionActive(active, DAY));
+        assertTrue(loaded.isSubscriptionActive(beforeEpoch, LocalDate.of(1970, 1, 5)));
+        assertFalse(loaded.isSubscriptionActive(active, DAY.plusMonths(1)));
+        assertEquals("a0003", loaded.getStationByName("Соборная").saleSubscription(DAY).getNumber());
+    }
+
+    @Test
+    void restoresSubscriptionLimit() {
+        Metro metro = TestMetros.perm(new Metro("Пермь", 2));
+        metro.getStationByName("Соборная").saleSubscription(DAY);
+        Path file = directory.resolve("limit.snapshot");
+        metro.saveSnapshot(file);
+
+        Metro loaded = Metro.loadSnapshot(file);
+        Station station = loaded.getStationByName("Соборная");
+        station.saleSubscription(DAY);
+        assertThrows(RuntimeException.class, () -> station.saleSubscription(DAY));
+    }
+
+    @Test
+    void keepsNamesLongerThan65535Bytes() {
+        char[] chars = new char[40_000];
+        Arrays.fill(chars, 'Ж');
+        String longName = new String(chars);
+        Metro metro = new Metro("Пермь");
+        metro.createLine(LineColor.RED);
+        metro.createFirstStation(LineColor.RED.getValue(), longName);
+        metro.createLastStation(LineColor.RED.getValue(), "Вторая", "1M");
+        Path file = directory.resolve("long.snapshot");
+        metro.saveSnapshot(file);
+
+        Metro loaded = Metro.loadSnapshot(file);
+        assertEquals(Duration.ofMinutes(1), loaded.findFastestTravelTime(longName, "Вторая"));
+    }
+
+    @Test
+    void registryLoadSharesNames() {
+        Path file = directory.resolve("perm.snapshot");
+        TestMetros.perm().saveSnapshot(file);
+        MetroRegistry registry = new MetroRegistry();
+        Metro created = TestMetros.perm(registry.createCity("Копия", new CityConfig()));
+        Metro loaded = registry.loadCity(file);
+        assertSame(loaded, registry.getCity("Пермь"));
+        assertSame(created.getStationByName("Тяжмаш").getName(), loaded.getStationByName("Тяжмаш").getName());
+        assertThrows(RuntimeException.class, () -> registry.loadCity(file));
+    }
+
+    @Test
+    void rejectsDamagedFiles() throws IOException {
+        Path file = directory.resolve("perm.snapshot");
+        TestMetros.perm().saveSnapshot(file);
+        byte[] bytes = Files.readAllBytes(file);
+        Path truncated = directory.resolve("truncated.snapshot");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(RuntimeException.class, () -> Metro.loadSnapshot(truncated));
+        Path other = directory.resolve("other.snapshot");
+        Files.write(other, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(RuntimeException.class, () -> Metro.loadSnapshot(other));
+    }
+
+    private static List<String> names(List<Station> stations) {
+        return stations.stream().map(Station::getName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.metro.underground;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RevenueAnalyticsTest {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2023, 11, 20);
+    private final Metro metro = TestMetros.perm();
+
+    @Test
+    void parallelReportMatchesSequential() {
+        sellForDays(120);
+        LocalDate to = FIRST_DAY.plusDays(119);
+        RevenueReport sequential = metro.analyzeRevenue(FIRST_DAY, to, false);
+        RevenueReport parallel = metro.analyzeRevenue(FIRST_DAY, to, true);
+        assertEquals(sequential, parallel);
+        assertEquals(metro.incomeBetween(FIRST_DAY, to), sequential.getTotal());
+        assertEquals(metro.incomeByLine(FIRST_DAY, to), sequential.getByLine());
+
+        RevenueReport middle = metro.analyzeRevenue(FIRST_DAY.plusDays(15), FIRST_DAY.plusDays(44), false);
+        assertEquals(middle, metro.analyzeRevenue(FIRST_DAY.plusDays(15), FIRST_DAY.plusDays(44), true));
+        assertEquals(metro.incomeBetween(FIRST_DAY.plusDays(15), FIRST_DAY.plusDays(44)), middle.getTotal());
+    }
+
+    @Test
+    void groupsByMonthAndDayOfWeek() {
+        Station station = metro.getStationByName("Спортивная");
+        station.saleOneTicket("Спортивная", "Пермь 2", LocalDate.of(2024, 1, 31)); //Среда
+        station.saleOneTicket("Спортивная", "Пермь 2", LocalDate.of(2024, 2, 1)); //Четверг
+        station.saleOneTicket("Спортивная", "Пермь 2", LocalDate.of(1969, 12, 31)); //Среда
+        RevenueReport report = metro.analyzeRevenue(LocalDate.of(1969, 1, 1), LocalDate.of(2024, 12, 31), true);
+        assertEquals(List.of(YearMonth.of(1969, 12), YearMonth.of(2024, 1), YearMonth.of(2024, 2)),
+                new ArrayList<>(report.getByMonth().keySet()));
+        assertEquals(new BigDecimal("80"), report.getByDayOfWeek().get(DayOfWeek.WEDNESDAY));
+        assertEquals(new BigDecimal("40"), report.getByDayOfWeek().get(DayOfWeek.THURSDAY));
+        assertEquals(new BigDecimal("120"), report.getByStation().get("Спортивная"));
+        assertEquals(0, report.getByStation().get("Соборная").signum());
+    }
+
+    @Test
+    void copiesOnlyDaysOfPeriod() {
+        SparseDailyRevenue revenue = new SparseDailyRevenue();
+        revenue.add(-5, 1);
+        revenue.add(10, 20);
+        revenue.add(12, 300);
+        revenue.add(40, 4000);
+        assertEquals(320, revenue.copyBetween(10, 39).sumBetween(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(321, revenue.copyBetween(Long.MIN_VALUE, 12).sumBetween(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(300, revenue.copyBetween(11, 12).sumBetween(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(0, revenue.copyBetween(13, 39).sumBetween(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(0, revenue.copyBetween(50, 40).sumBetween(Long.MIN_VALUE, Long.MAX_VALUE));
+        SparseDailyRevenue copy = revenue.copyBetween(Long.MIN_VALUE, Long.MAX_VALUE);
+        revenue.add(12, 50_000);
+        assertEquals(4321, copy.sumBetween(Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    private void sellForDays(int days) {
+        List<Station> stations = metro.getNetwork().getStations();
+        for (int day = 0; day < days; day++) {
+            Station from = stations.get(day % stations.size());
+            Station to = stations.get((day * 7 + 3) % stations.size());
+            if (from != to) {
+                from.saleOneTicket(from.getName(), to.getName(), FIRST_DAY.plusDays(day));
+            }
+            if (day % 11 == 0) {
+                from.saleSubscription(FIRST_DAY.plusDays(day));
+            }
+        }
+        Map<String, BigDecimal> incomes = metro.incomeByStation(FIRST_DAY, FIRST_DAY.plusDays(days));
+        assertEquals(stations.size(), incomes.size());
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.metro.underground;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.example.metro.underground.util.UndergroundUtil.kopecksToRoubles;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RevenueLedgerTest {
+    private static final LocalDate D1 = LocalDate.of(2024, 3, 1);
+    private static final LocalDate D2 = D1.plusDays(1);
+    private static final LocalDate D3 = D1.plusDays(2);
+    private final Metro metro = TestMetros.perm();
+
+    @Test
+    void answersRangeLineStationAndTopQueries() {
+        Station sport = metro.getStationByName("Спортивная");
+        Station sobor = metro.getStationByName("Соборная");
+        sport.saleOneTicket("Спортивная", "Пермь 2", D1);
+        sport.saleOneTicket("Спортивная", "Пермь 2", D2);
+        sobor.saleOneTicket("Соборная", "Пермь 1", D2);
+        sobor.saleSubscription(D3);
+
+        assertEquals(new BigDecimal("3110"), metro.incomeBetween(D1, D3));
+        assertEquals(new BigDecimal("70"), metro.incomeBetween(D2, D2));
+        assertEquals(new BigDecimal("40"), metro.incomeBetween(D1.minusYears(1), D1));
+        assertEquals(0, metro.incomeBetween(D3.plusDays(1), D3.plusYears(1)).signum());
+
+        Map<LineColor, BigDecimal> byLine = metro.incomeByLine(D1, D3);
+        assertEquals(new BigDecimal("80"), byLine.get(LineColor.RED));
+        assertEquals(new BigDecimal("3030"), byLine.get(LineColor.BLUE));
+
+        Map<String, BigDecimal> byStation = metro.incomeByStation(D2, D3);
+        assertEquals(new BigDecimal("40"), byStation.get("Спортивная"));
+        assertEquals(new BigDecimal("3030"), byStation.get("Соборная"));
+        assertEquals(0, byStation.get("Тяжмаш").signum());
+
+        assertEquals(List.of(Map.entry(D3, new BigDecimal("3000")), Map.entry(D2, new BigDecimal("70"))),
+                metro.topIncomeDays(2));
+        assertEquals(3, metro.topIncomeDays(10).size());
+        assertTrue(metro.topIncomeDays(0).isEmpty());
+    }
+
+    @Test
+    void rangeSumsMatchDailySumsAcrossPages() {
+        LocalDate first = LocalDate.of(1969, 6, 1);
+        int days = 700;
+        long[] daily = new long[days];
+        Station station = metro.getStationByName("Молодежная");
+        for (int day = 0; day < days; day += 3) {
+            station.saleOneTicket("Молодежная", day % 2 == 0 ? "Пермь 2" : "Соборная", first.plusDays(day));
+            daily[day] = day % 2 == 0 ? 30_00 : 35_00;
+        }
+        int[][] ranges = {{0, days - 1}, {0, 0}, {1, 2}, {200, 520}, {255, 256}, {211, 699}, {600, 800}};
+        for (int[] range : ranges) {
+            long expected = 0;
+            for (int day = range[0]; day <= Math.min(range[1], days - 1); day++) {
+                expected += daily[day];
+            }
+            assertEquals(kopecksToRoubles(expected),
+                    metro.incomeBetween(first.plusDays(range[0]), first.plusDays(range[1])));
+        }
+        assertEquals(metro.incomeBetween(first, first.plusDays(days)),
+                metro.incomeByLine(first, first.plusDays(days)).get(LineColor.RED));
+    }
+
+    @Test
+    void reordersTopDaysOnEverySale() {
+        Station station = metro.getStationByName("Спортивная");
+        station.saleOneTicket("Спортивная", "Пермь 2", D1);
+        station.saleOneTicket("Спортивная", "Пермь 2", D2);
+        station.saleOneTicket("Спортивная", "Пермь 2", D3);
+        assertEquals(List.of(D1, D2, D3), topDates(3));
+        station.saleOneTicket("Спортивная", "Медведковская", D3);
+        assertEquals(List.of(D3, D1), topDates(2));
+        station.saleOneTicket("Спортивная", "Пермь 2", D2);
+        station.saleOneTicket("Спортивная", "Пермь 2", D2);
+        assertEquals(List.of(D2, D3, D1), topDates(5));
+    }
+
+    @Test
+    void rankingMatchesDailyIncomesAfterConcurrentSales() throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            Station station = metro.getStationByName(t % 2 == 0 ? "Спортивная" : "Соборная");
+            int shift = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    station.saleOneTicket(station.getName(), "Пермь 1", D1.plusDays((i * 7 + shift) % 40));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        List<Map.Entry<LocalDate, BigDecimal>> top = metro.topIncomeDays(100);
+        assertEquals(40, top.size());
+        for (int i = 0; i < top.size(); i++) {
+            LocalDate day = top.get(i).getKey();
+            assertEquals(metro.incomeBetween(day, day), top.get(i).getValue());
+            if (i > 0) {
+                assertTrue(top.get(i - 1).getValue().compareTo(top.get(i).getValue()) >= 0);
+            }
+        }
+    }
+
+    private List<LocalDate> topDates(int count) {
+        List<LocalDate> dates = new ArrayList<>();
+        for (Map.Entry<LocalDate, BigDecimal> day : metro.topIncomeDays(count)) {
+            dates.add(day.getKey());
+        }
+        return dates;
+    }
+}
@@ -0,0 +1,130 @@
+package org.example.metro.underground;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.example.metro.underground.TripEventType.ENTRY;
+import static org.example.metro.underground.TripEventType.EXIT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RidershipStreamTest {
+    private static final long T0 = 1_700_000_000_000L;
+    private static final Duration SECOND = Duration.ofSeconds(1);
+    private final Metro metro = TestMetros.perm();
+
+    @Test
+    void countsWindowsOfStationsAndLines() {
+        try (RidershipStream stream = metro.openRidership(SECOND, 10, 2)) {
+            stream.publish("Спортивная", ENTRY, T0);
+            stream.publish("Спортивная", ENTRY, T0 + 1000);
+            stream.publish("Спортивная", ENTRY, T0 + 1500);
+            stream.publish("Спортивная", ENTRY, T0 + 5000);
+            stream.publish("Пермь 2", ENTRY, T0 + 5000);
+            stream.publish("Соборная", EXIT, T0 + 5000);
+            stream.awaitProcessed();
+
+            assertEquals(1, stream.countStation("Спортивная", ENTRY, SECOND));
+            assertEquals(3, stream.countStation("Спортивная", ENTRY, Duration.ofSeconds(5)));
+            assertEquals(4, stream.countStation("Спортивная", ENTRY, Duration.ofSeconds(6)));
+            assertEquals(4, stream.countStation("Спортивная", ENTRY, Duration.ofMillis(5001)));
+            assertEquals(0, stream.countStation("Спортивная", EXIT, Duration.ofSeconds(6)));
+            assertEquals(5, stream.countLine(LineColor.RED, ENTRY, Duration.ofSeconds(6)));
+            assertEquals(1, stream.countLine(LineColor.BLUE, EXIT, SECOND));
+            assertEquals(0, stream.countLine(LineColor.BLUE, ENTRY, Duration.ofSeconds(9)));
+            assertEquals(2, stream.countStationInBucket("Спортивная", ENTRY, Instant.ofEpochMilli(T0 + 1999)));
+            assertEquals(2, stream.countLineInBucket(LineColor.RED, ENTRY, Instant.ofEpochMilli(T0 + 5000)));
+            assertThrows(RuntimeException.class,
+                    () -> stream.countStation("Спортивная", ENTRY, Duration.ofSeconds(10)));
+        }
+    }
+
+    @Test
+    void countsLateEventsWithinStoredBuckets() {
+        try (RidershipStream stream = metro.openRidership(SECOND, 4, 1)) {
+            stream.publish("Спортивная", ENTRY, T0);
+            stream.publish("Спортивная", ENTRY, T0 + 5000);
+            stream.publish("Спортивная", ENTRY, T0 + 3000);
+            stream.publish("Спортивная", ENTRY, T0 + 1000);
+            stream.awaitProcessed();
+
+            assertEquals(1, stream.getDroppedEvents());
+            assertEquals(2, stream.countStation("Спортивная", ENTRY, Duration.ofSeconds(3)));
+            assertEquals(1, stream.countStationInBucket("Спортивная", ENTRY, Instant.ofEpochMilli(T0 + 3000)));
+            assertEquals(2, stream.countLine(LineColor.RED, ENTRY, Duration.ofSeconds(3)));
+            assertThrows(RuntimeException.class,
+                    () -> stream.countStationInBucket("Спортивная", ENTRY, Instant.ofEpochMilli(T0)));
+        }
+    }
+
+    @Test
+    void reusesBucketsAfterWrapAround() {
+        try (RidershipStream stream = metro.openRidership(SECOND, 4, 2)) {
+            for (int second = 0; second < 20; second++) {
+                stream.publish("Соборная", EXIT, T0 + second * 1000L);
+                stream.publish("Соборная", EXIT, T0 + second * 1000L + 500);
+            }
+            stream.publish("Тяжмаш", EXIT, T0 + 30_000);
+            stream.awaitProcessed();
+
+            assertEquals(0, stream.countStation("Соборная", EXIT, Duration.ofSeconds(3)));
+            assertEquals(1, stream.countLine(LineColor.BLUE, EXIT, Duration.ofSeconds(3)));
+            stream.publish("Соборная", EXIT, T0 + 29_000);
+            stream.awaitProcessed();
+            assertEquals(1, stream.countStation("Соборная", EXIT, Duration.ofSeconds(3)));
+            assertEquals(0, stream.getDroppedEvents());
+        }
+    }
+
+    @Test
+    void countsEveryEventAfterBufferWrapAround() {
+        int eventCount = 200_000;
+        String[] stations = {"Спортивная", "Пермь 1", "Тяжмаш", "Соборная"};
+        try (RidershipStream stream = metro.openRidership(SECOND, 8, 3)) {
+            for (int i = 0; i < eventCount; i++) {
+                stream.publish(stations[i % stations.length], i % 2 == 0 ? ENTRY : EXIT, T0 + i % 5000);
+            }
+            stream.awaitProcessed();
+
+            long total = 0;
+            for (LineColor lineColor : new LineColor[]{LineColor.RED, LineColor.BLUE}) {
+                total += stream.countLine(lineColor, ENTRY, Duration.ofSeconds(5));
+                total += stream.countLine(lineColor, EXIT, Duration.ofSeconds(5));
+            }
+            assertEquals(eventCount, total);
+            assertEquals(eventCount / 2, stream.countStation("Спортивная", ENTRY, Duration.ofSeconds(5))
+                    + stream.countStation("Тяжмаш", ENTRY, Duration.ofSeconds(5)));
+        }
+    }
+
+    @Test
+    void keepsStationsOfEachConsumerApart() {
+        List<Station> stations = metro.getNetwork().getStations();
+        try (RidershipStream stream = metro.openRidership(SECOND, 4, 3)) {
+            for (Station station : stations) {
+                for (int i = 0; i <= station.getId(); i++) {
+                    stream.publish(station.getId(), ENTRY, T0);
+                }
+            }
+            stream.awaitProcessed();
+
+            for (Station station : stations) {
+                assertEquals(station.getId() + 1, stream.countStation(station.getName(), ENTRY, SECOND));
+                assertEquals(0, stream.countStation(station.getName(), EXIT, SECOND));
+            }
+        }
+    }
+
+    @Test
+    void processesEventsAfterIdlePeriod() throws InterruptedException {
+        try (RidershipStream stream = metro.openRidership(SECOND, 4, 2)) {
+            Thread.sleep(200);
+            stream.publish("Пацанская", EXIT, T0);
+            stream.awaitProcessed();
+            assertEquals(1, stream.countStation("Пацанская", EXIT, SECOND));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.metro.underground;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RouteEngineTest {
+    private final Metro metro = TestMetros.perm();
+
+    @Test
+    void countsStagesOnOneLine() {
+        assertEquals(5, metro.countStages("Спортивная", "Дворец Культуры"));
+        assertEquals(5, metro.countStages("Дворец Культуры", "Спортивная"));
+        assertEquals(1, metro.countStages("Пермь 1", "Пермь 2"));
+    }
+
+    @Test
+    void countsStagesAndTransfersAcrossLines() {
+        assertEquals(5, metro.countStages("Спортивная", "Соборная"));
+        assertEquals(1, transfers("Спортивная", "Соборная"));
+        assertEquals(0, transfers("Спортивная", "Пермь 2"));
+    }
+
+    @Test
+    void matrixAndSearchAgree() {
+        FrozenNetwork frozen = metro.getNetwork();
+        RouteEngine engine = frozen.getRouteEngine();
+        StageMatrix matrix = frozen.getStageMatrix();
+        int size = frozen.getStations().size();
+        for (int from = 0; from < size; from++) {
+            for (int to = 0; to < size; to++) {
+                if (from == to) {
+                    continue;
+                }
+                engine.search(from, to, RouteCriterion.STAGES);
+                assertEquals(engine.getStages(to), matrix.getStages(from, to));
+                assertEquals(engine.getTransfers(to), matrix.getTransfers(from, to));
+                assertEquals(engine.getSeconds(to), matrix.getSeconds(from, to));
+            }
+        }
+    }
+
+    @Test
+    void countsTravelTimeOfFareRouteWithoutTransferTime() {
+        assertEquals(Duration.parse("PT9M29S"), metro.countTravelTime("Спортивная", "Пермь 2"));
+        assertEquals(Duration.parse("PT12M26S"), metro.countTravelTime("Спортивная", "Соборная"));
+        metro.setTransferPenalty(Duration.ofMinutes(2));
+        assertEquals(Duration.parse("PT12M26S"), metro.countTravelTime("Соборная", "Спортивная"));
+        metro.setStageMatrixEnabled(false);
+        assertEquals(Duration.parse("PT12M26S"), metro.countTravelTime("Спортивная", "Соборная"));
+        assertThrows(RuntimeException.class, () -> metro.countTravelTime("Спортивная", "Спортивная"));
+    }
+
+    @Test
+    void findsRouteThroughTransfer() {
+        List<String> route = metro.findRoute("Молодежная", "Нижнекамская", RouteCriterion.STAGES).stream()
+                .map(Station::getName)
+                .collect(Collectors.toList());
+        assertEquals(List.of("Молодежная", "Пермь 1", "Тяжмаш", "Нижнекамская"), route);
+    }
+
+    @Test
+    void addsTransferPenaltyToFastestTime() {
+        Duration withoutPenalty = metro.findFastestTravelTime("Пермь 2", "Соборная");
+        metro.setTransferPenalty(Duration.ofMinutes(2));
+        assertEquals(withoutPenalty.plusMinutes(2), metro.findFastestTravelTime("Пермь 2", "Соборная"));
+        assertEquals(Duration.ofSeconds(130 + 199 + 108 + 120), metro.findFastestTravelTime("Пермь 2", "Соборная"));
+    }
+
+    @Test
+    void rejectsSameAndUnreachableStations() {
+        assertThrows(RuntimeException.class, () -> metro.countStages("Пермь 1", "Пермь 1"));
+        Metro islands = TestMetros.islands();
+        assertThrows(RuntimeException.class, () -> islands.countStages("Пермь 1", "Остров"));
+    }
+
+    @Test
+    void extendsMatrixWhenStationsAppended() {
+        metro.countStages("Спортивная", "Соборная");
+        metro.createLastStation(LineColor.BLUE.getValue(), "Гайва", "2M");
+        assertEquals(6, metro.countStages("Спортивная", "Гайва"));
+        assertEquals(1, transfers("Спортивная", "Гайва"));
+    }
+
+    private int transfers(String from, String to) {
+        FrozenNetwork frozen = metro.getNetwork();
+        return frozen.getStageMatrix().getTransfers(frozen.findStation(from).getId(), frozen.findStation(to).getId());
+    }
+}
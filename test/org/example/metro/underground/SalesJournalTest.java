@@ -0,0 +1,116 @@
+package org.example.metro.underground;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SalesJournalTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+    private static final int RECORD_SIZE = 32;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysSalesAndSubscriptionsAfterReopen() {
+        Metro metro = TestMetros.perm();
+        metro.openJournal(directory, Duration.ZERO);
+        Station sportivnaya = metro.getStationByName("Спортивная");
+        sportivnaya.saleOneTicket("Спортивная", "Соборная", DAY);
+        sportivnaya.saleOneTicket("Спортивная", "Пермь 2", DAY.plusDays(1));
+        Subscription subscription = sportivnaya.saleSubscription(DAY);
+        sportivnaya.refreshSubscription(subscription.getNumber(), DAY.plusMonths(2));
+        metro.syncJournal();
+        metro.closeJournal();
+
+        Metro reopened = TestMetros.perm();
+        reopened.openJournal(directory, Duration.ZERO);
+        assertEquals(metro.incomeBetween(DAY, DAY.plusDays(1)), reopened.incomeBetween(DAY, DAY.plusDays(1)));
+        assertEquals(metro.incomeByStation(DAY, DAY.plusDays(1)), reopened.incomeByStation(DAY, DAY.plusDays(1)));
+        assertTrue(reopened.isSubscriptionActive(subscription.getNumber(), DAY.plusMonths(2)));
+        assertFalse(reopened.isSubscriptionActive(subscription.getNumber(), DAY));
+
+        reopened.getStationByName("Соборная").saleOneTicket("Соборная", "Пермь 1", DAY);
+        reopened.closeJournal();
+        Metro third = TestMetros.perm();
+        third.openJournal(directory, Duration.ZERO);
+        assertEquals(reopened.incomeBetween(DAY, DAY.plusDays(1)), third.incomeBetween(DAY, DAY.plusDays(1)));
+        third.closeJournal();
+    }
+
+    @Test
+    void stopsAtTornRecordAndContinuesAfterIt() throws IOException {
+        Metro metro = TestMetros.perm();
+        metro.openJournal(directory, Duration.ZERO);
+        Station sportivnaya = metro.getStationByName("Спортивная");
+        sportivnaya.saleOneTicket("Спортивная", "Соборная", DAY);
+        sportivnaya.saleOneTicket("Спортивная", "Соборная", DAY.plusDays(1));
+        sportivnaya.saleOneTicket("Спортивная", "Соборная", DAY.plusDays(2));
+        metro.closeJournal();
+        BigDecimal firstDay = metro.incomeBetween(DAY, DAY);
+
+        try (FileChannel channel = FileChannel.open(directory.resolve("sales-000000.journal"),
+                StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), RECORD_SIZE + 20); //Сумма второй записи без сброса суммы
+        }
+
+        Metro reopened = TestMetros.perm();
+        reopened.openJournal(directory, Duration.ZERO);
+        assertEquals(firstDay, reopened.incomeBetween(DAY, DAY.plusDays(2)));
+
+        reopened.getStationByName("Соборная").saleOneTicket("Соборная", "Пермь 1", DAY.plusDays(5));
+        reopened.closeJournal();
+        Metro third = TestMetros.perm();
+        third.openJournal(directory, Duration.ZERO);
+        assertEquals(firstDay, third.incomeBetween(DAY, DAY.plusDays(2)));
+        assertEquals(reopened.incomeBetween(DAY, DAY.plusDays(5)), third.incomeBetween(DAY, DAY.plusDays(5)));
+        third.closeJournal();
+    }
+
+    @Test
+    void rejectsJournalOfAnotherNetwork() {
+        Metro metro = TestMetros.perm();
+        metro.openJournal(directory, Duration.ZERO);
+        metro.getStationByName("Соборная").saleOneTicket("Соборная", "Пермь 1", DAY);
+        metro.closeJournal();
+
+        Metro smaller = new Metro("Пермь");
+        smaller.createLine(LineColor.RED);
+        smaller.createFirstStation(LineColor.RED.getValue(), "Спортивная");
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> smaller.openJournal(directory, Duration.ZERO));
+        assertTrue(error.getMessage().startsWith("Журнал продаж не соответствует сети"));
+    }
+
+    @Test
+    void rejectsJournalAfterSales() {
+        Metro metro = TestMetros.perm();
+        metro.getStationByName("Соборная").saleOneTicket("Соборная", "Пермь 1", DAY);
+        assertThrows(RuntimeException.class, () -> metro.openJournal(directory, Duration.ZERO));
+
+        Metro withSubscription = TestMetros.perm();
+        withSubscription.getStationByName("Соборная").saleSubscription(DAY);
+        assertThrows(RuntimeException.class, () -> withSubscription.openJournal(directory, Duration.ZERO));
+    }
+
+    @Test
+    void rejectsSecondOpen() {
+        Metro metro = TestMetros.perm();
+        metro.openJournal(directory, Duration.ofMillis(5));
+        assertThrows(RuntimeException.class, () -> metro.openJournal(directory, Duration.ZERO));
+        metro.closeJournal();
+    }
+}
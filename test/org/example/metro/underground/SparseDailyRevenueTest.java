@@ -0,0 +1,67 @@
+package org.example.metro.underground;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SparseDailyRevenueTest {
+
+    @Test
+    void keepsDaysSortedWhateverOrderOfSales() {
+        SparseDailyRevenue revenue = new SparseDailyRevenue();
+        long[] days = {10, 3, 25, 3, -400, 10, 17, 40, 1};
+        for (long day : days) {
+            revenue.add(day, 100);
+        }
+        Map<LocalDate, Long> sales = new LinkedHashMap<>();
+        revenue.forEach(sales::put);
+        assertEquals(List.of(LocalDate.ofEpochDay(-400), LocalDate.ofEpochDay(1), LocalDate.ofEpochDay(3),
+                LocalDate.ofEpochDay(10), LocalDate.ofEpochDay(17), LocalDate.ofEpochDay(25),
+                LocalDate.ofEpochDay(40)), new ArrayList<>(sales.keySet()));
+        assertEquals(Long.valueOf(200), sales.get(LocalDate.ofEpochDay(3)));
+        assertEquals(900, revenue.sumBetween(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(400, revenue.sumBetween(2, 11));
+        assertEquals(0, revenue.sumBetween(41, 100));
+        assertEquals(100, revenue.sumBetween(-1000, 0));
+    }
+
+    @Test
+    void copiesOnlyDaysOfPeriod() {
+        SparseDailyRevenue revenue = new SparseDailyRevenue();
+        for (long day = 0; day < 100; day += 10) {
+            revenue.add(day, day);
+        }
+        SparseDailyRevenue copy = revenue.copyBetween(15, 45);
+        List<Long> days = new ArrayList<>();
+        copy.forEachBetween(Long.MIN_VALUE, Long.MAX_VALUE, (day, kopecks) -> days.add(day));
+        assertEquals(List.of(20L, 30L, 40L), days);
+        assertEquals(90, copy.sumBetween(0, 100));
+        revenue.add(30, 5);
+        assertEquals(90, copy.sumBetween(0, 100));
+        assertEquals(0, revenue.copyBetween(101, 200).sumBetween(0, 300));
+        assertEquals(0, revenue.copyBetween(45, 15).sumBetween(0, 300));
+        assertThrows(RuntimeException.class, () -> revenue.add(Integer.MAX_VALUE + 1L, 1));
+    }
+
+    @Test
+    void createsCashiersOnFirstSale() {
+        Metro metro = TestMetros.perm();
+        for (Station station : metro.getNetwork().getStations()) {
+            assertNull(station.findCashier());
+        }
+        metro.getStationByName("Тяжмаш").saleOneTicket("Тяжмаш", "Соборная", LocalDate.of(2024, 3, 1));
+        for (Station station : metro.getNetwork().getStations()) {
+            assertEquals("Тяжмаш".equals(station.getName()), station.findCashier() != null);
+        }
+        assertEquals(0, metro.incomeByStation(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 1))
+                .get("Спортивная").signum());
+    }
+}
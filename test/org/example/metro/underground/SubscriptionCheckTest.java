@@ -0,0 +1,72 @@
+package org.example.metro.underground;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SubscriptionCheckTest {
+    private static final LocalDate START = LocalDate.of(2024, 1, 31);
+    private final Metro metro = TestMetros.perm();
+
+    @Test
+    void activeFromStartUntilSameDayNextMonth() {
+        String number = metro.getStationByName("Спортивная").saleSubscription(START).getNumber();
+        assertFalse(metro.isSubscriptionActive(number, START.minusDays(1)));
+        assertTrue(metro.isSubscriptionActive(number, START));
+        assertTrue(metro.isSubscriptionActive(number, LocalDate.of(2024, 2, 28)));
+        assertFalse(metro.isSubscriptionActive(number, LocalDate.of(2024, 2, 29)));
+        assertFalse(metro.isSubscriptionActive(number, LocalDate.of(2024, 6, 1)));
+    }
+
+    @Test
+    void refreshMovesValidityPeriod() {
+        Station station = metro.getStationByName("Спортивная");
+        String number = station.saleSubscription(START).getNumber();
+        station.refreshSubscription(number, LocalDate.of(2024, 6, 1));
+        assertFalse(metro.isSubscriptionActive(number, START));
+        assertTrue(metro.isSubscriptionActive(number, LocalDate.of(2024, 6, 30)));
+        assertFalse(metro.isSubscriptionActive(number, LocalDate.of(2024, 7, 1)));
+    }
+
+    @Test
+    void acceptsOnlyIssuedNumbers() {
+        Station station = metro.getStationByName("Спортивная");
+        assertEquals("a0001", station.saleSubscription(START).getNumber());
+        for (String number : new String[]{"a1", "a01", "a001", "a00001", "a0000", "A0001", "a0001 ", "0001", "", null}) {
+            assertFalse(metro.isSubscriptionActive(number, START), String.valueOf(number));
+            assertThrows(RuntimeException.class, () -> station.refreshSubscription(number, START));
+        }
+        assertTrue(metro.isSubscriptionActive("a0001", START));
+        assertFalse(metro.isSubscriptionActive("a0002", START));
+    }
+
+    @Test
+    void parsesCanonicalNumbers() {
+        assertEquals(1, SubscriptionStore.parseNumber("a0001"));
+        assertEquals(9999, SubscriptionStore.parseNumber("a9999"));
+        assertEquals(10000, SubscriptionStore.parseNumber("a10000"));
+        assertEquals(SubscriptionStore.NOT_FOUND, SubscriptionStore.parseNumber("a010000"));
+        assertEquals(Integer.MAX_VALUE, SubscriptionStore.parseNumber(SubscriptionStore.formatNumber(Integer.MAX_VALUE)));
+        assertEquals(SubscriptionStore.NOT_FOUND, SubscriptionStore.parseNumber("a2147483648"));
+        for (int id : new int[]{1, 42, 999, 1000, 12345, 100_000_000}) {
+            assertEquals(id, SubscriptionStore.parseNumber(SubscriptionStore.formatNumber(id)));
+        }
+    }
+
+    @Test
+    void checksBatchOnOneDate() {
+        Station station = metro.getStationByName("Спортивная");
+        String first = station.saleSubscription(START).getNumber();
+        String second = station.saleSubscription(START.plusMonths(2)).getNumber();
+        boolean[] results = new boolean[4];
+        int active = metro.checkSubscriptions(new String[]{first, second, "a01", "a9999"}, START.plusDays(3), results);
+        assertEquals(1, active);
+        assertArrayEquals(new boolean[]{true, false, false, false}, results);
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.metro.underground;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SubscriptionStoreTest {
+    private final SubscriptionStore store = new SubscriptionStore(100_000);
+
+    @Test
+    void storesDatesBefore1970() {
+        int beforeEpoch = store.add(LocalDate.of(1969, 12, 31));
+        int longAgo = store.add(LocalDate.of(1900, 2, 15));
+        assertEquals(LocalDate.of(1969, 12, 31).toEpochDay(), store.getStartEpochDay(beforeEpoch));
+        assertTrue(store.isActive(beforeEpoch, LocalDate.of(1969, 12, 31).toEpochDay()));
+        assertTrue(store.isActive(beforeEpoch, LocalDate.of(1970, 1, 30).toEpochDay()));
+        assertFalse(store.isActive(beforeEpoch, LocalDate.of(1970, 1, 31).toEpochDay()));
+        assertFalse(store.isActive(beforeEpoch, LocalDate.of(1969, 12, 30).toEpochDay()));
+        assertTrue(store.isActive(longAgo, LocalDate.of(1900, 3, 1).toEpochDay()));
+        assertEquals(LocalDate.of(1900, 2, 15), new Subscription(store, longAgo).getStartDate());
+
+        assertTrue(store.setStartDate(longAgo, LocalDate.of(1950, 6, 1)));
+        assertTrue(store.isActive(longAgo, LocalDate.of(1950, 6, 15).toEpochDay()));
+        assertFalse(store.isActive(longAgo, LocalDate.of(1900, 3, 1).toEpochDay()));
+    }
+
+    @Test
+    void storesFirstAndLastDaysOfRange() {
+        int first = store.add(LocalDate.ofEpochDay(Integer.MIN_VALUE));
+        assertEquals(Integer.MIN_VALUE, store.getStartEpochDay(first));
+        assertTrue(store.isActive(first, Integer.MIN_VALUE));
+        LocalDate lastStart = LocalDate.ofEpochDay(Integer.MAX_VALUE).minusMonths(1);
+        int last = store.add(lastStart);
+        assertTrue(store.isActive(last, lastStart.toEpochDay()));
+        assertThrows(RuntimeException.class, () -> store.add(LocalDate.ofEpochDay(Integer.MIN_VALUE - 1L)));
+        assertThrows(RuntimeException.class, () -> store.add(lastStart.plusDays(1)));
+    }
+
+    @Test
+    void restoresEncodedDays() {
+        int id = store.add(LocalDate.of(1965, 5, 9));
+        SubscriptionStore copy = new SubscriptionStore(100_000);
+        copy.restoreEncoded(id, store.getEncoded(id));
+        assertEquals(store.getStartEpochDay(id), copy.getStartEpochDay(id));
+        assertEquals(1, copy.size());
+        assertEquals(SubscriptionStore.NO_DAY, copy.getStartEpochDay(id + 1));
+    }
+}
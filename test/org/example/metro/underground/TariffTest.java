@@ -0,0 +1,76 @@
+package org.example.metro.underground;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TariffTest {
+    private static final LocalDate FRIDAY = LocalDate.of(2024, 3, 1);
+    private final Metro metro = TestMetros.perm();
+
+    @Test
+    void flatTariffChargesFeeAndStages() {
+        assertEquals(45_00, fare("Спортивная", "Соборная", FRIDAY));
+        metro.setTariff(new FlatTariff(10_00, 2_00, 1_000_00));
+        assertEquals(20_00, fare("Спортивная", "Соборная", FRIDAY));
+        Station station = metro.getStationByName("Соборная");
+        station.saleSubscription(FRIDAY);
+        station.saleOneTicket("Соборная", "Пермь 1", FRIDAY);
+        assertEquals(new BigDecimal("1014"), metro.incomeBetween(FRIDAY, FRIDAY));
+    }
+
+    @Test
+    void rulesAddLineRatesTransfersAndZones() {
+        metro.setTariff(new TariffRules()
+                .setLineStageRate(LineColor.BLUE, 3_00)
+                .setTransferSurcharge(7_00)
+                .setStationZone("Соборная", 1)
+                .setZoneSurcharge(0, 1, 15_00)
+                .setSubscriptionPrice(2_500_00));
+        assertEquals(67_00, fare("Спортивная", "Соборная", FRIDAY));
+        assertEquals(57_00, fare("Соборная", "Спортивная", FRIDAY));
+        assertEquals(25_00, fare("Пермь 1", "Пермь 2", FRIDAY));
+        assertEquals(26_00, fare("Пацанская", "Тяжмаш", FRIDAY));
+        assertEquals(2_500_00, metro.findSubscriptionPrice(FRIDAY));
+    }
+
+    @Test
+    void dayOfWeekPercentsApplyToTicketDate() {
+        metro.setTariff(new TariffRules()
+                .setDayOfWeekPercent(DayOfWeek.SATURDAY, 50)
+                .setDayOfWeekPercent(DayOfWeek.MONDAY, 120));
+        assertEquals(40_00, fare("Спортивная", "Пермь 2", FRIDAY));
+        assertEquals(20_00, fare("Спортивная", "Пермь 2", FRIDAY.plusDays(1)));
+        assertEquals(48_00, fare("Спортивная", "Пермь 2", FRIDAY.plusDays(3)));
+        assertEquals(20_00, fare("Спортивная", "Пермь 2", LocalDate.of(1969, 12, 27)));
+    }
+
+    @Test
+    void rulesAreCopiedAndRecompiledForNewStations() {
+        TariffRules rules = new TariffRules().setStationZone("Бахаревка", 2).setZoneSurcharge(0, 2, 10_00);
+        metro.setTariff(rules);
+        rules.setTicketFee(0);
+        assertEquals(40_00, fare("Спортивная", "Пермь 2", FRIDAY));
+        metro.createLastStation(LineColor.BLUE.getValue(), "Бахаревка", "2M");
+        assertEquals(40_00, fare("Нижнекамская", "Бахаревка", FRIDAY));
+    }
+
+    @Test
+    void rejectsInvalidRules() {
+        TariffRules rules = new TariffRules();
+        assertThrows(RuntimeException.class, () -> rules.setTicketFee(-1));
+        assertThrows(RuntimeException.class, () -> rules.setStationZone("Соборная", 256));
+        assertThrows(RuntimeException.class, () -> rules.setZoneSurcharge(-1, 0, 1));
+        assertThrows(RuntimeException.class, () -> rules.setDayOfWeekPercent(DayOfWeek.SUNDAY, 0));
+        assertThrows(RuntimeException.class, () -> new FlatTariff(1, -1, 1));
+    }
+
+    private long fare(String from, String to, LocalDate date) {
+        return metro.findFare(from, to, date.toEpochDay());
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.metro.underground;
+
+import java.util.Set;
+
+import static org.example.metro.underground.LineColor.BLUE;
+import static org.example.metro.underground.LineColor.RED;
+
+/**
+ * Сети метрополитена для тестов
+ */
+public class TestMetros {
+
+    /**
+     * Пермь из Runner: две линии с пересадкой Пермь 1 - Тяжмаш
+     */
+    public static Metro perm() {
+        return perm(new Metro("Пермь"));
+    }
+
+    /**
+     * Сеть Перми в пустом метрополитене
+     */
+    public static Metro perm(Metro metro) {
+        permRedLine(metro);
+        metro.createLine(BLUE);
+        metro.createFirstStation(BLUE.getValue(), "Пацанская");
+        metro.createLastStation(BLUE.getValue(), "Улица Кирова", "1M30S");
+        Station tygMash = metro.createLastStation(BLUE.getValue(), "Тяжмаш", "1M47S", Set.of("Пермь 1"));
+        metro.createLastStation(BLUE.getValue(), "Нижнекамская", "3M19S");
+        metro.createLastStation(BLUE.getValue(), "Соборная", "1M48S");
+        metro.getStationByName("Пермь 1").setChangeLineStations(Set.of(tygMash));
+        return metro;
+    }
+
+    /**
+     * Только красная линия Перми в пустом метрополитене
+     */
+    public static Metro permRedLine(Metro metro) {
+        metro.createLine(RED);
+        metro.createFirstStation(RED.getValue(), "Спортивная");
+        metro.createLastStation(RED.getValue(), "Медведковская", "2M21S");
+        metro.createLastStation(RED.getValue(), "Молодежная", "1M58S");
+        metro.createLastStation(RED.getValue(), "Пермь 1", "3M");
+        metro.createLastStation(RED.getValue(), "Пермь 2", "2M10S");
+        metro.createLastStation(RED.getValue(), "Дворец Культуры", "4M26S");
+        return metro;
+    }
+
+    /**
+     * Красная линия Перми и синяя линия Остров - Пристань - Маяк без пересадок между ними
+     */
+    public static Metro islands() {
+        return islands(new Metro("Пермь"));
+    }
+
+    /**
+     * Красная линия Перми и синяя линия без пересадок в пустом метрополитене
+     */
+    public static Metro islands(Metro metro) {
+        permRedLine(metro);
+        metro.createLine(BLUE);
+        metro.createFirstStation(BLUE.getValue(), "Остров");
+        metro.createLastStation(BLUE.getValue(), "Пристань", "2M");
+        metro.createLastStation(BLUE.getValue(), "Маяк", "3M");
+        return metro;
+    }
+}
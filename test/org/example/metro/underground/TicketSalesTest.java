@@ -0,0 +1,49 @@
+package org.example.metro.underground;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TicketSalesTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+    private final Metro metro = TestMetros.perm();
+
+    @Test
+    void sellsBatchToStartStationCashiers() {
+        metro.sellTickets(List.of(
+                new TicketSale("Спортивная", "Соборная", DAY),
+                new TicketSale("Спортивная", "Медведковская", DAY),
+                new TicketSale("Соборная", "Пермь 1", DAY.plusDays(1))));
+        assertEquals(new BigDecimal("100"), metro.incomeBetween(DAY, DAY.plusDays(1)));
+        assertEquals(new BigDecimal("70"), metro.incomeByStation(DAY, DAY).get("Спортивная"));
+        assertEquals(new BigDecimal("30"), metro.incomeByStation(DAY, DAY.plusDays(1)).get("Соборная"));
+    }
+
+    @Test
+    void rejectsWholeBatchBeforeWritingRevenue() {
+        List<TicketSale> batch = List.of(
+                new TicketSale("Спортивная", "Соборная", DAY),
+                new TicketSale("Соборная", "Пермь 1", LocalDate.MIN));
+        assertThrows(RuntimeException.class, () -> metro.sellTickets(batch));
+        assertThrows(RuntimeException.class, () -> metro.getStationByName("Спортивная").saleTickets(batch));
+        assertThrows(RuntimeException.class, () -> metro.sellTickets(List.of(
+                new TicketSale("Спортивная", "Соборная", DAY),
+                new TicketSale("Спортивная", "Нет такой", DAY))));
+        assertEquals(BigDecimal.ZERO, metro.incomeBetween(LocalDate.of(1900, 1, 1), DAY.plusYears(1)));
+    }
+
+    @Test
+    void sellsBatchBefore1970() {
+        LocalDate oldDay = LocalDate.of(1965, 5, 9);
+        metro.sellTickets(List.of(
+                new TicketSale("Спортивная", "Соборная", oldDay),
+                new TicketSale("Соборная", "Пермь 1", DAY)));
+        assertEquals(new BigDecimal("45"), metro.incomeBetween(oldDay, oldDay));
+        assertEquals(new BigDecimal("30"), metro.incomeByStation(oldDay.plusDays(1), DAY).get("Соборная"));
+    }
+}